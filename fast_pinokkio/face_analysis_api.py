@@ -1,4 +1,4 @@
-from fastapi import FastAPI, HTTPException
+from fastapi import FastAPI, HTTPException, Request
 from fastapi.responses import JSONResponse
 import numpy as np
 import cv2
@@ -27,6 +27,9 @@ app = FastAPI()
 class ImageData(BaseModel):
     images: List[str]
 
+class SingleImageData(BaseModel):
+    image: str
+
 class AnalysisResult(BaseModel):
     age: int
     gender: str
@@ -44,24 +47,48 @@ def preprocess_face(frame):
     processed = cv2.cvtColor(blurred, cv2.COLOR_GRAY2BGR)
     return processed
 
+def decode_image(raw: bytes):
+    # 바이너리 전송은 프레임 바이트를 그대로, JSON 전송은 Base64 텍스트를 보낸다.
+    img = cv2.imdecode(np.frombuffer(raw, np.uint8), cv2.IMREAD_COLOR)
+    if img is None:
+        try:
+            img = cv2.imdecode(np.frombuffer(base64.b64decode(raw), np.uint8), cv2.IMREAD_COLOR)
+        except ValueError:
+            return None
+    return img
+
+async def read_images(request: Request) -> List[bytes]:
+    # multipart/form-data (images 파트 여러 개) 또는 기존 JSON 형식을 받는다.
+    if request.headers.get("content-type", "").startswith("multipart/form-data"):
+        form = await request.form()
+        return [await part.read() for part in form.getlist("images")]
+    data = ImageData(**(await request.json()))
+    return [image.encode() for image in data.images]
+
+async def read_image(request: Request) -> bytes:
+    # application/octet-stream (프레임 바이트) 또는 기존 JSON 형식을 받는다.
+    if request.headers.get("content-type", "").startswith("application/octet-stream"):
+        return await request.body()
+    data = SingleImageData(**(await request.json()))
+    return data.image.encode()
+
 def get_closest_face(faces):
     if not faces:
         return None
     return max(faces, key=lambda face: (face.bbox[2] - face.bbox[0]) * (face.bbox[3] - face.bbox[1]))
 
 @app.post("/analyze_faces")
-async def analyze_faces(data: ImageData):
+async def analyze_faces(request: Request):
     request_id = str(uuid.uuid4())
-    logger.info(f"Received request with {len(data.images)} images")
+    images = await read_images(request)
+    logger.info(f"Received request with {len(images)} images")
 
     best_result = None
     best_score = 0
 
-    for i, base64_image in enumerate(data.images):
+    for i, raw_image in enumerate(images):
         try:
-            image_data = base64.b64decode(base64_image)
-            nparr = np.frombuffer(image_data, np.uint8)
-            img = cv2.imdecode(nparr, cv2.IMREAD_COLOR)
+            img = decode_image(raw_image)
             preprocessed_face = preprocess_face(img)
             faces = face_analyzer.get(preprocessed_face)
             closest_face = get_closest_face(faces)
@@ -100,6 +127,32 @@ async def analyze_faces(data: ImageData):
     logger.info(f"Best face analysis result selected. Returning result.")
     return JSONResponse(content={"result": best_result.dict()})
 
+@app.post("/analyze_face")
+async def analyze_face(request: Request):
+    """스트리밍 캡처용: 이미지 한 장을 분석하고 det_score 를 함께 반환한다."""
+    img = decode_image(await read_image(request))
+    if img is None:
+        raise HTTPException(status_code=400, detail="Invalid image")
+
+    faces = face_analyzer.get(preprocess_face(img))
+    closest_face = get_closest_face(faces)
+
+    if closest_face is None or closest_face.det_score <= 0.5:
+        det_score = float(closest_face.det_score) if closest_face is not None else 0.0
+        logger.info(f"Frame has no clearly analyzed face. Score {det_score}")
+        return JSONResponse(content={"result": {"is_face": False, "det_score": det_score}})
+
+    det_score = float(closest_face.det_score)
+    gender = "Male" if closest_face.gender == 1 else "Female"
+    logger.info(f"Frame processed: Age {closest_face.age}, Gender {gender}, Score {det_score}")
+    return JSONResponse(content={"result": {
+        "age": int(closest_face.age),
+        "gender": gender,
+        "is_face": True,
+        "encrypted_embedding": json.dumps(closest_face.embedding.tolist()),
+        "det_score": det_score
+    }})
+
 @app.get("/fast/health")
 async def health_check():
     return {"status": "healthy"}
@@ -0,0 +1,69 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 후보 한 명당 유사도 계산 비교: 기존 calculateCosineSimilarity 와 정규화된 float[] 내적 커널
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CosineSimilarityBenchmark {
+
+    @Param({"true", "false"})
+    public boolean simd;
+
+    private LegacyFaceMatcher legacy;
+    private RealVector legacyA;
+    private RealVector legacyB;
+    private float[] a;
+    private float[] b;
+
+    @Setup
+    public void setup() {
+        VectorMath.useSimd(simd);
+        legacy = new LegacyFaceMatcher(new ObjectMapper());
+
+        SyntheticFaces faces = SyntheticFaces.analyzer(2, 2L);
+        legacyA = toRealVector(faces.vectors[0]);
+        legacyB = toRealVector(faces.vectors[1]);
+        a = FaceEmbedding.normalize(faces.vectors[0]).getVector();
+        b = FaceEmbedding.normalize(faces.vectors[1]).getVector();
+    }
+
+    @Benchmark
+    public double legacyRealVector() {
+        return legacy.calculateCosineSimilarity(legacyA, legacyB);
+    }
+
+    @Benchmark
+    public float normalizedDot() {
+        return VectorMath.dot(a, 0, b, 0, a.length);
+    }
+
+    private static RealVector toRealVector(float[] vector) {
+        double[] values = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            values[i] = vector[i];
+        }
+        return new ArrayRealVector(values);
+    }
+}
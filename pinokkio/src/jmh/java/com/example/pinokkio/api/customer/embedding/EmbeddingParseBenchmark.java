@@ -0,0 +1,61 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.math3.linear.RealVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomerService.parseEmbedding 비교: 기존 JSON + RealVector 파싱과 바이너리 코덱 디코딩
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmbeddingParseBenchmark {
+
+    private LegacyFaceMatcher legacy;
+    private FaceEmbeddingCodec codec;
+    private String legacyEmbedding;
+    private String binaryEmbedding;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        legacy = new LegacyFaceMatcher(objectMapper);
+        codec = new FaceEmbeddingCodec(objectMapper);
+
+        float[] raw = SyntheticFaces.analyzer(1, 1L).vectors[0];
+        legacyEmbedding = legacy.encode(raw);
+        binaryEmbedding = Base64.getEncoder()
+                .encodeToString(FaceEmbeddingCodec.encodeBinary(FaceEmbedding.normalize(raw)));
+    }
+
+    @Benchmark
+    public RealVector legacyJson() {
+        return legacy.parseEmbedding(legacyEmbedding);
+    }
+
+    @Benchmark
+    public FaceEmbedding legacyJsonWithCodec() {
+        return codec.decode(Base64.getDecoder().decode(legacyEmbedding));
+    }
+
+    @Benchmark
+    public FaceEmbedding binary() {
+        return codec.decode(Base64.getDecoder().decode(binaryEmbedding));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 포스 전체 고객 대상 얼굴 매칭 비교.
+ * 기존 findMatchingCustomer(고객마다 파싱 + RealVector + 병렬 스트림)와 FaceIndex 구현체들을
+ * 재방문 고객(hit)과 신규 고객(miss) 입력으로 측정한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FaceMatchBenchmark {
+
+    private static final double THRESHOLD = 0.7;
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"1000", "10000", "100000"})
+    public int population;
+
+    @Param({"LEGACY", "EXACT", "HNSW", "QUANTIZED"})
+    public String engine;
+
+    private LegacyFaceMatcher legacy;
+    private List<LegacyFaceMatcher.StoredCustomer> storedCustomers;
+    private String[] legacyHitQueries;
+    private String[] legacyMissQueries;
+    private FaceIndex index;
+
+    private float[][] hitQueries;
+    private float[][] missQueries;
+    private Gender[] queryGenders;
+    private int[] queryAges;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticFaces faces = SyntheticFaces.analyzer(population, 7L);
+
+        hitQueries = new float[QUERY_COUNT][];
+        missQueries = new float[QUERY_COUNT][];
+        queryGenders = new Gender[QUERY_COUNT];
+        queryAges = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int customer = faces.randomCustomer();
+            hitQueries[i] = faces.revisitOf(customer, 0.5);
+            missQueries[i] = faces.randomVector();
+            queryGenders[i] = faces.genders[customer];
+            queryAges[i] = faces.ages[customer];
+        }
+
+        if ("LEGACY".equals(engine)) {
+            legacy = new LegacyFaceMatcher(new ObjectMapper());
+            storedCustomers = new ArrayList<>(population);
+            for (int i = 0; i < population; i++) {
+                storedCustomers.add(new LegacyFaceMatcher.StoredCustomer(faces.customerIds[i], legacy.encode(faces.vectors[i])));
+            }
+            legacyHitQueries = new String[QUERY_COUNT];
+            legacyMissQueries = new String[QUERY_COUNT];
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                legacyHitQueries[i] = legacy.encode(hitQueries[i]);
+                legacyMissQueries[i] = legacy.encode(missQueries[i]);
+            }
+            return;
+        }
+
+        index = switch (engine) {
+            case "HNSW" -> new HnswFaceIndex(16, 100, 64);
+            case "QUANTIZED" -> new QuantizedFaceIndex(32, 0);
+            default -> new ExactFaceIndex();
+        };
+        for (int i = 0; i < population; i++) {
+            index.upsert(faces.customerIds[i], faces.genders[i], faces.ages[i],
+                    FaceEmbedding.normalize(faces.vectors[i]).getVector());
+        }
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            hitQueries[i] = FaceEmbedding.normalize(hitQueries[i]).getVector();
+            missQueries[i] = FaceEmbedding.normalize(missQueries[i]).getVector();
+        }
+    }
+
+    @Benchmark
+    public UUID revisit() {
+        return match(hitQueries, legacyHitQueries);
+    }
+
+    @Benchmark
+    public UUID newCustomer() {
+        return match(missQueries, legacyMissQueries);
+    }
+
+    private UUID match(float[][] queries, String[] legacyQueries) {
+        int i = cursor++ & (QUERY_COUNT - 1);
+        if (legacy != null) {
+            return legacy.findMatchingCustomer(storedCustomers, legacy.parseEmbedding(legacyQueries[i]));
+        }
+        FaceMatch match = index.findBest(queries[i], queryGenders[i], queryAges[i] - 5, queryAges[i] + 5, THRESHOLD);
+        return match == null ? null : match.getCustomerId();
+    }
+}
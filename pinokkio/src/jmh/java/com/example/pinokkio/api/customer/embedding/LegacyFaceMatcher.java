@@ -0,0 +1,94 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 비교 기준으로 쓰는 기존 CustomerService 의 얼굴 매칭 구현.
+ * Base64 로 인코딩된 JSON 문자열을 RealVector 로 파싱하고, 후보마다 두 벡터를 정규화한 뒤 병렬 스트림으로 최댓값을 찾는다.
+ */
+public class LegacyFaceMatcher {
+
+    private static final double SIMILARITY_THRESHOLD = 0.7;
+
+    private final ObjectMapper objectMapper;
+
+    public LegacyFaceMatcher(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 기존 저장 형식 (따옴표로 감싼 JSON 배열을 Base64 인코딩한 문자열)
+     */
+    public String encode(float[] vector) {
+        try {
+            String json = "\"" + objectMapper.writeValueAsString(vector) + "\"";
+            return Base64.getEncoder().encodeToString(json.getBytes());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public RealVector parseEmbedding(String embedding) {
+        try {
+            String decodedString = new String(Base64.getDecoder().decode(embedding));
+            decodedString = decodedString.replaceAll("^\"|\"$", "");
+            List<Double> values = objectMapper.readValue(decodedString, new TypeReference<List<Double>>() {
+            });
+            return new ArrayRealVector(values.stream().mapToDouble(Double::doubleValue).toArray());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("임베딩 데이터 파싱 실패", e);
+        }
+    }
+
+    public double calculateCosineSimilarity(RealVector v1, RealVector v2) {
+        return normalizeVector(v1).dotProduct(normalizeVector(v2));
+    }
+
+    /**
+     * 고객마다 저장된 임베딩 문자열을 파싱하여 유사도를 계산하는 전체 탐색
+     */
+    public UUID findMatchingCustomer(List<StoredCustomer> customers, RealVector inputVector) {
+        return customers.parallelStream()
+                .map(customer -> new Similarity(
+                        customer.customerId,
+                        calculateCosineSimilarity(inputVector, parseEmbedding(customer.embedding))))
+                .filter(similarity -> similarity.value >= SIMILARITY_THRESHOLD)
+                .max(Comparator.comparingDouble(similarity -> similarity.value))
+                .map(similarity -> similarity.customerId)
+                .orElse(null);
+    }
+
+    private RealVector normalizeVector(RealVector vector) {
+        double norm = vector.getNorm();
+        return norm > 0 ? vector.mapDivide(norm) : vector;
+    }
+
+    public static class StoredCustomer {
+        final UUID customerId;
+        final String embedding;
+
+        public StoredCustomer(UUID customerId, String embedding) {
+            this.customerId = customerId;
+            this.embedding = embedding;
+        }
+    }
+
+    private static class Similarity {
+        final UUID customerId;
+        final double value;
+
+        Similarity(UUID customerId, double value) {
+            this.customerId = customerId;
+            this.value = value;
+        }
+    }
+}
@@ -4,6 +4,10 @@ import com.example.pinokkio.api.customer.dto.request.CustomerRegistrationEvent;
 import com.example.pinokkio.api.customer.dto.request.CustomerRegistrationRequest;
 import com.example.pinokkio.api.customer.dto.response.CustomerResponse;
 import com.example.pinokkio.api.customer.sse.SSEService;
+import com.example.pinokkio.api.kiosk.Kiosk;
+import com.example.pinokkio.api.pos.Pos;
+import com.example.pinokkio.api.user.UserService;
+import com.example.pinokkio.exception.base.AuthorizationException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Base64;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/customer")
@@ -25,6 +30,7 @@ public class CustomerController {
 
     private final CustomerService customerService;
     private final SSEService sseService;
+    private final UserService userService;
 
     @Operation(summary = "신규 고객 등록", description = "특정 포스에 신규 고객을 등록")
     @PostMapping("/register")
@@ -45,9 +51,26 @@ public class CustomerController {
 
     }
 
+    @Operation(summary = "고객 얼굴 정보 삭제", description = "포스 고객의 얼굴 임베딩을 삭제하여 얼굴 인식 대상에서 제외")
+    @DeleteMapping("/face")
+    @PreAuthorize("hasRole('ROLE_POS')")
+    public ResponseEntity<?> deleteFace(@RequestParam UUID customerId) {
+        log.info("[고객 얼굴 정보 삭제] customerId: {}", customerId);
+        customerService.deleteFaceEmbedding(customerId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "얼굴 인식 이벤트 구독", description = "토큰의 포스 또는 키오스크에서 발생한 얼굴 인식 이벤트만 수신")
     @GetMapping("/face-recognition-events")
-    public SseEmitter subscribeToEvents() {
-        return sseService.createEmitter();
+    public SseEmitter subscribeToEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Object currentUser = userService.getCurrentUser();
+        if (currentUser instanceof Pos pos) {
+            return sseService.createEmitter(SSEService.posTopic(pos.getId()), lastEventId);
+        }
+        if (currentUser instanceof Kiosk kiosk) {
+            return sseService.createEmitter(SSEService.kioskTopic(kiosk.getId()), lastEventId);
+        }
+        throw new AuthorizationException("AUTH_007", "Current user is neither POS nor Kiosk");
     }
 
     // CustomerRegistrationEvent를 처리하는 이벤트 리스너 메서드입니다.
@@ -1,6 +1,7 @@
 package com.example.pinokkio.api.customer;
 
-import com.example.pinokkio.common.type.Gender;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
@@ -9,17 +10,6 @@ import java.util.UUID;
 
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
 
-    /**
-     * 특정 POS ID, 성별 및 나이 범위에 해당하는 고객 목록을 조회합니다.
-     *
-     * @param posId    POS ID
-     * @param gender   성별
-     * @param minAge   최소 나이
-     * @param maxAge   최대 나이
-     * @return 조건에 맞는 고객 목록
-     */
-    List<Customer> findByPosIdAndGenderAndAgeBetween(UUID posId, Gender gender, int minAge, int maxAge);
-
     /**
      * 특정 POS ID에 해당하는 모든 고객 목록을 조회합니다.
      *
@@ -36,4 +26,12 @@ public interface CustomerRepository extends JpaRepository<Customer, UUID> {
      * @return 해당 조건에 부합하는 고객
      */
     Optional<Customer> findByPosIdAndPhoneNumber(UUID posId, String phoneNumber);
+
+    /**
+     * 얼굴 임베딩이 등록된 고객 목록을 페이지 단위로 조회합니다.
+     *
+     * @param pageable 페이지 정보
+     * @return 얼굴 임베딩이 있는 고객 목록
+     */
+    Slice<Customer> findByFaceEmbeddingIsNotNull(Pageable pageable);
 }
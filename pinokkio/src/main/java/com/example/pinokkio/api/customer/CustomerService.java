@@ -2,6 +2,14 @@ package com.example.pinokkio.api.customer;
 
 import com.example.pinokkio.api.customer.dto.response.AnalysisResult;
 import com.example.pinokkio.api.customer.dto.response.CustomerResponse;
+import com.example.pinokkio.api.customer.embedding.CustomerEmbeddingIndex;
+import com.example.pinokkio.api.customer.embedding.FaceEmbedding;
+import com.example.pinokkio.api.customer.embedding.FaceEmbeddingCodec;
+import com.example.pinokkio.api.customer.embedding.FaceEmbeddingDecoder;
+import com.example.pinokkio.api.customer.embedding.FaceMatch;
+import com.example.pinokkio.api.customer.embedding.FaceMatchCoalescer;
+import com.example.pinokkio.api.customer.embedding.FaceQuery;
+import com.example.pinokkio.api.customer.embedding.KioskRecognitionCache;
 import com.example.pinokkio.api.customer.sse.SSEService;
 import com.example.pinokkio.api.kiosk.Kiosk;
 import com.example.pinokkio.api.kiosk.KioskRepository;
@@ -13,19 +21,18 @@ import com.example.pinokkio.api.user.UserService;
 import com.example.pinokkio.common.type.Gender;
 import com.example.pinokkio.config.jwt.JwtProvider;
 import com.example.pinokkio.exception.domain.customer.CustomerNotFoundException;
+import com.example.pinokkio.exception.domain.customer.NotCustomerOfPosException;
 import com.example.pinokkio.exception.domain.pos.PosNotFoundException;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.RealVector;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -36,6 +43,8 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class CustomerService {
 
+    private static final double SIMILARITY_THRESHOLD = 0.7;
+
     private final CustomerRepository customerRepository;
     private final RedisTemplate<String, String> redisTemplate;
     private final SSEService sseService;
@@ -45,27 +54,17 @@ public class CustomerService {
     private final KioskService kioskService;
     private final UserService userService;
     private final KioskRepository kioskRepository;
-
-    @Value("${redis.cache.ttl}")
-    private long redisCacheTTL;
-
-    // 고객과 유사도를 저장하는 내부 클래스
-    private static class CustomerSimilarity {
-        Customer customer;
-        double similarity;
-
-        CustomerSimilarity(Customer customer, double similarity) {
-            this.customer = customer;
-            this.similarity = similarity;
-        }
-    }
+    private final CustomerEmbeddingIndex customerEmbeddingIndex;
+    private final FaceEmbeddingCodec faceEmbeddingCodec;
+    private final FaceEmbeddingDecoder faceEmbeddingDecoder;
+    private final KioskRecognitionCache kioskRecognitionCache;
+    private final FaceMatchCoalescer faceMatchCoalescer;
 
     /**
      * 얼굴 임베딩 정보와 함께 고객을 저장한다.
      */
+    @Transactional
     public CustomerResponse saveCustomer(AnalysisResult analysisResult, String phoneNumber) {
-        byte[] faceEmbeddingData = Base64.getDecoder().decode(analysisResult.getEncryptedEmbedding());
-
         String cacheKey = "analysis_result:" + analysisResult.getEncryptedEmbedding();
 
         AnalysisResult cachedResult;
@@ -87,29 +86,31 @@ public class CustomerService {
             }
         }
 
-        byte[] embeddingData = Base64.getDecoder().decode(cachedResult.getEncryptedEmbedding());
+        FaceEmbedding embedding = faceEmbeddingDecoder.decode(cachedResult.getEncryptedEmbedding());
 
-        Pos currenetPos = getCurrenetPos();
+        Kiosk currentKiosk = userService.getCurrentKiosk();
+        Pos currenetPos = getCurrenetPos(currentKiosk);
         Customer customer = Customer.builder()
                 .pos(currenetPos)
                 .gender(Gender.fromString(cachedResult.getGender()))
                 .phoneNumber(phoneNumber)
                 .age(cachedResult.getAge())
-                .faceEmbedding(embeddingData)
+                .faceEmbedding(faceEmbeddingCodec.encode(embedding))
                 .build();
 
         log.info("customer 등록: " + customer);
         Customer savedCustomer = customerRepository.save(customer);
-        cacheCustomerEmbedding(savedCustomer.getId(), faceEmbeddingData);
+        registerToIndexAfterCommit(currenetPos.getId(), savedCustomer, embedding);
+        // 방금 '신규 고객'으로 인식된 결과가 남아 있지 않도록 키오스크 인식 캐시를 비운다.
+        kioskRecognitionCache.invalidate(currentKiosk.getId());
 
-        sseService.sendAnalysisResult(cachedResult, savedCustomer);
+        sseService.sendAnalysisResult(currentKiosk.getId(), cachedResult, savedCustomer);
 
         return new CustomerResponse(savedCustomer);
     }
 
     // 헤더에 토큰이 있어야 확인 가능
-    private Pos getCurrenetPos() {
-        Kiosk kiosk = userService.getCurrentKiosk();
+    private Pos getCurrenetPos(Kiosk kiosk) {
         KioskResponse kioskInfo = kioskService.getKioskInfo(kiosk);
         UUID posId = UUID.fromString(kioskInfo.getPosId());
         return posRepository.findById(posId)
@@ -136,24 +137,14 @@ public class CustomerService {
      */
     public Customer findCustomerByFaceEmbedding(UUID kioskId, int age, String gender, String encryptedFaceEmbedding) {
         try {
-            // Redis 캐시 키를 생성합니다.
-            String cacheKey = "face_embedding:" + encryptedFaceEmbedding;
-            redisTemplate.opsForValue().set(cacheKey, encryptedFaceEmbedding, redisCacheTTL, TimeUnit.SECONDS);
-
-            RealVector inputVector = parseEmbedding(encryptedFaceEmbedding);
-            UUID posId = kioskRepository.findPosIdById(kioskId)
-                    .orElseThrow(() -> new PosNotFoundException(kioskId));
-            // 성별과 나이 범위 -> 범위 한정 탐색
-            List<Customer> potentialCustomers = customerRepository.findByPosIdAndGenderAndAgeBetween(posId, Gender.valueOf(gender.toUpperCase()), age - 5, age + 5);
-            Customer matchedCustomer = findMatchingCustomer(potentialCustomers, inputVector);
-
-            // 매칭되는 고객이 없으면 모든 고객을 대상으로 다시 검색합니다.
-            if (matchedCustomer == null) {
-                List<Customer> allCustomers = customerRepository.findAllByPosId(posId);
-                matchedCustomer = findMatchingCustomer(allCustomers, inputVector);
-            }
+            FaceEmbedding inputEmbedding = parseEmbedding(encryptedFaceEmbedding);
+            UUID matchedCustomerId = findMatchedCustomerId(kioskId, age, gender, inputEmbedding);
+            Customer matchedCustomer = matchedCustomerId == null
+                    ? null
+                    : customerRepository.findById(matchedCustomerId).orElse(null);
 
             sseService.sendAnalysisResult(
+                    kioskId,
                     new AnalysisResult(age, gender, true, encryptedFaceEmbedding),
                     matchedCustomer
             );
@@ -166,131 +157,90 @@ public class CustomerService {
     }
 
     /**
-     * 고객 목록에서 가장 유사한 고객을 찾는 로직
+     * 현재 포스 고객의 얼굴 임베딩을 삭제하여 얼굴 인식 대상에서 제외한다.
+     * 고객 정보와 주문 내역은 그대로 남는다.
      *
-     * @param customers   고객 목록
-     * @param inputVector 벡터 정보
-     * @return 유사도가 가장 높은 고객 정보
+     * @param customerId 고객 식별자
      */
-    private Customer findMatchingCustomer(List<Customer> customers, RealVector inputVector) {
-        //병렬 스트림 활용
-        return customers.parallelStream()
-                .map(customer -> processCustomer(customer, inputVector))
-                // null이 아니고 유사도가 0.7 이상인 결과만 필터링합니다.
-                .filter(cs -> cs != null && cs.similarity >= 0.7)
-                .max(Comparator.comparingDouble(cs -> cs.similarity))
-                .map(cs -> cs.customer)
-                .orElse(null);
+    @Transactional
+    public void deleteFaceEmbedding(UUID customerId) {
+        UUID posId = userService.getCurrentPosId();
+        Customer customer = findById(customerId);
+        if (!customer.getPos().getId().equals(posId)) {
+            throw new NotCustomerOfPosException(customerId);
+        }
+        customer.updateFaceEmbedding(null);
+        removeFromIndexAfterCommit(posId, customerId);
     }
 
     /**
-     * 개별 고객의 얼굴 임베딩과 입력 벡터의 코사인 유사도를 계산하는 메서드
+     * 같은 키오스크에서 방금 인식한 거의 같은 얼굴이면 이전 결과를 재사용하고, 아니면 포스 인덱스를 탐색한다.
      *
-     * @param customer    고객 정보
-     * @param inputVector 벡터 정보
-     * @return 얼굴 임베딩과 입력 벡터의 유사도
+     * @return 매칭된 고객 식별자, 없으면 null
      */
-    private CustomerSimilarity processCustomer(Customer customer, RealVector inputVector) {
-        try {
-            // 고객의 얼굴 임베딩 데이터를 조회합니다.
-            byte[] faceEmbedding = Optional
-                    .ofNullable(findById(customer.getId()))
-                    .map(Customer::getFaceEmbedding)
-                    .orElse(null);
-
-
-            // Redis 캐시에서 고객의 얼굴 임베딩 데이터를 조회합니다.
-            String cachedEmbedding = redisTemplate
-                    .opsForValue()
-                    .get("customer_embedding:" + customer.getId());
-
-            if (cachedEmbedding == null) {
-                cachedEmbedding = Base64.getEncoder().encodeToString(faceEmbedding);
-                cacheCustomerEmbedding(customer.getId(), faceEmbedding);
-            }
-
-            RealVector customerVector = parseEmbedding(cachedEmbedding);
-
-            // 고객의 얼굴 임베딩 데이터를 벡터로 변환합니다.
-            return new CustomerSimilarity(
-                    customer,
-                    calculateCosineSimilarity(inputVector, customerVector)
-            );
-
-        } catch (Exception e) {
-            log.error("Error processing customer {}", customer.getId(), e);
-            return null;
+    private UUID findMatchedCustomerId(UUID kioskId, int age, String gender, FaceEmbedding inputEmbedding) {
+        float[] inputVector = inputEmbedding.getVector();
+        KioskRecognitionCache.Entry recent = kioskRecognitionCache.lookup(kioskId, inputVector);
+        if (recent != null) {
+            return recent.getCustomerId();
         }
-    }
 
+        UUID posId = kioskRepository.findPosIdById(kioskId)
+                .orElseThrow(() -> new PosNotFoundException(kioskId));
+        // 성별과 나이 범위 내 고객을 우선하여 포스 인덱스를 탐색한다.
+        // 같은 포스로 동시에 들어온 요청들은 한 번의 배치 검색으로 묶인다.
+        FaceQuery query = new FaceQuery(inputVector, Gender.valueOf(gender.toUpperCase()), age - 5, age + 5);
+        FaceMatch match = faceMatchCoalescer.submit(posId, query, SIMILARITY_THRESHOLD).join();
+        UUID matchedCustomerId = match == null ? null : match.getCustomerId();
+        kioskRecognitionCache.put(kioskId, inputVector, matchedCustomerId);
+        return matchedCustomerId;
+    }
 
     /**
-     * 얼굴 임베딩 정보를 캐싱
+     * 저장된 고객을 트랜잭션 커밋 이후 얼굴 임베딩 인덱스에 반영한다.
      *
-     * @param customerId    고객 식별자
-     * @param faceEmbedding 얼굴 임베딩 정보
+     * @param posId     포스 식별자
+     * @param customer  저장된 고객 정보
+     * @param embedding 정규화된 얼굴 임베딩
      */
-    private void cacheCustomerEmbedding(UUID customerId, byte[] faceEmbedding) {
-        try {
-            String embeddingString = new String(faceEmbedding);
-            String encodedEmbedding = Base64.getEncoder().encodeToString(embeddingString.getBytes());
-            redisTemplate
-                    .opsForValue()
-                    .set(
-                            "customer_embedding:" + customerId,
-                            encodedEmbedding,
-                            redisCacheTTL,
-                            TimeUnit.SECONDS
-                    );
-        } catch (Exception e) {
-            log.error("고객의 얼굴 임베딩 정보를 저장하는 과정에서 오류 발생 = {}", customerId, e);
-        }
+    private void registerToIndexAfterCommit(UUID posId, Customer customer, FaceEmbedding embedding) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                customerEmbeddingIndex.upsert(posId, customer, embedding);
+            }
+        });
     }
 
     /**
-     * 문자열 형태의 임베딩을 벡터로 변환하여 반환한다.
+     * 얼굴 임베딩을 삭제한 고객을 트랜잭션 커밋 이후 얼굴 임베딩 인덱스에서 제외한다.
      *
-     * @param embedding 문자열 형태의 임베딩
-     * @return 임베딩을 벡터로 변환한 값
+     * @param posId      포스 식별자
+     * @param customerId 고객 식별자
      */
-    @Cacheable(value = "embeddingVectors", key = "#embedding")
-    public RealVector parseEmbedding(String embedding) {
-        try {
-            byte[] decodedBytes = Base64.getDecoder().decode(embedding);
-            String decodedString = new String(decodedBytes);
-
-            decodedString = decodedString.replaceAll("^\"|\"$", "");
-
-            List<Double> values = objectMapper.readValue(decodedString, new TypeReference<List<Double>>() {
-            });
-            double[] doubleValues = values.stream().mapToDouble(Double::doubleValue).toArray();
-            return new ArrayRealVector(doubleValues);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("임베딩 데이터 파싱 실패", e);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("임베딩 데이터 디코딩 실패", e);
-        }
+    private void removeFromIndexAfterCommit(UUID posId, UUID customerId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                customerEmbeddingIndex.remove(posId, customerId);
+            }
+        });
     }
 
     /**
-     * 유사도 정보를 계산하여 반환한다.
+     * 문자열 형태의 임베딩을 정규화된 임베딩으로 변환하여 반환한다.
+     * 디코딩 결과는 FaceEmbeddingDecoder 의 캐시를 거친다.
      *
-     * @param v1 벡터 정보 1
-     * @param v2 벡터 정보 2
-     * @return 벡터 유사도
+     * @param embedding 문자열 형태의 임베딩
+     * @return 정규화된 임베딩
      */
-    private double calculateCosineSimilarity(RealVector v1, RealVector v2) {
-        RealVector normalizedV1 = normalizeVector(v1);
-        RealVector normalizedV2 = normalizeVector(v2);
-        return normalizedV1.dotProduct(normalizedV2);
-    }
-
-    private RealVector normalizeVector(RealVector vector) {
-        double norm = vector.getNorm();
-        return norm > 0 ? vector.mapDivide(norm) : vector;
+    public FaceEmbedding parseEmbedding(String embedding) {
+        return faceEmbeddingDecoder.decode(embedding);
     }
 
     // 얼굴 분석 결과를 바탕으로 고객을 찾거나 등록하는 메서드
+    // 매칭 대기 동안 DB 커넥션을 잡지 않도록 트랜잭션 없이 실행한다. (조회는 리포지토리 단위 트랜잭션)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void findCustomer(UUID kioskId, AnalysisResult analysisResult) {
         // 얼굴 임베딩을 사용하여 고객을 찾습니다.
         Customer matchedCustomer = findCustomerByFaceEmbedding(
@@ -300,7 +250,7 @@ public class CustomerService {
                 analysisResult.getEncryptedEmbedding());
 
         // 분석 결과와 매칭된 고객 정보를 SSE를 통해 전송합니다.
-        sseService.sendAnalysisResult(analysisResult, matchedCustomer);
+        sseService.sendAnalysisResult(kioskId, analysisResult, matchedCustomer);
     }
 
     /**
@@ -0,0 +1,229 @@
+package com.example.pinokkio.api.customer;
+
+import com.example.pinokkio.api.customer.dto.response.FrameAnalysis;
+import com.example.pinokkio.api.customer.sse.SSEService;
+import com.example.pinokkio.api.kiosk.KioskPosCache;
+import com.google.protobuf.ByteString;
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 키오스크 캡처 요청의 얼굴 분석 진입을 제어한다.
+ * <p>
+ * 키오스크마다 분석은 한 번에 하나만 실행한다. 분석 중에 들어온 캡처는 대기시키되 한 건만 유지하여,
+ * 더 새로운 캡처가 오면 이전 대기 캡처를 버린다. (latest-wins)
+ * 포스마다 동시에 실행할 수 있는 분석 수를 제한하여 한 매장의 키오스크가 공용 실행기와 HTTP 커넥션을 독점하지 못하게 한다.
+ * 스트리밍 캡처는 스트림이 끝날 때까지 키오스크의 실행 자리를 차지하고, 프레임마다 포스 동시 분석 한도를 함께 적용받는다.
+ * 진입 결과는 face.analysis.admission, 분석 소요 시간은 face.analysis.latency 지표로 노출된다.
+ */
+@Component
+@Slf4j
+public class FaceAnalysisCoalescer {
+
+    private final FaceAnalysisService faceAnalysisService;
+    private final KioskPosCache kioskPosCache;
+    private final SSEService sseService;
+
+    private final Map<UUID, KioskSlot> slotsByKiosk = new ConcurrentHashMap<>();
+    private final Map<UUID, Semaphore> budgetsByPos = new ConcurrentHashMap<>();
+
+    private final Counter startedCounter;
+    private final Counter queuedCounter;
+    private final Counter supersededCounter;
+    private final Counter posBusyCounter;
+    private final Counter kioskBusyCounter;
+    private final Counter executorBusyCounter;
+    private final Timer latencyTimer;
+
+    @Value("${face.analysis.pos-concurrency:4}")
+    private int posConcurrency;
+
+    public FaceAnalysisCoalescer(FaceAnalysisService faceAnalysisService,
+                                 KioskPosCache kioskPosCache,
+                                 SSEService sseService,
+                                 MeterRegistry meterRegistry) {
+        this.faceAnalysisService = faceAnalysisService;
+        this.kioskPosCache = kioskPosCache;
+        this.sseService = sseService;
+        this.startedCounter = meterRegistry.counter("face.analysis.admission", "result", "started");
+        this.queuedCounter = meterRegistry.counter("face.analysis.admission", "result", "queued");
+        this.supersededCounter = meterRegistry.counter("face.analysis.admission", "result", "superseded");
+        this.posBusyCounter = meterRegistry.counter("face.analysis.admission", "result", "pos_busy");
+        this.kioskBusyCounter = meterRegistry.counter("face.analysis.admission", "result", "kiosk_busy");
+        this.executorBusyCounter = meterRegistry.counter("face.analysis.admission", "result", "executor_busy");
+        this.latencyTimer = Timer.builder("face.analysis.latency")
+                .description("캡처 분석 실행 시간 (분석 서버 호출 + 고객 매칭)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 키오스크의 캡처를 분석 대상으로 등록한다.
+     *
+     * @param kioskId  키오스크 식별자
+     * @param images   키오스크가 보낸 이미지 리스트
+     * @param deadline 분석 마감 시간
+     * @return 분석이 시작되었거나 대기 중이면 true, 포스 동시 분석 한도 또는 실행기 대기열 초과로 거절되었으면 false
+     */
+    public boolean submit(UUID kioskId, List<ByteString> images, Deadline deadline) {
+        KioskSlot slot = slotsByKiosk.computeIfAbsent(kioskId, id -> new KioskSlot());
+        synchronized (slot) {
+            if (slot.running) {
+                if (slot.pending != null) {
+                    supersededCounter.increment();
+                    log.debug("[FaceAnalysisCoalescer] kioskId: {} 대기 중인 캡처를 새 캡처로 교체", kioskId);
+                } else {
+                    queuedCounter.increment();
+                }
+                slot.pending = images;
+                slot.pendingDeadline = deadline;
+                return true;
+            }
+            slot.running = true;
+        }
+        return start(kioskId, slot, images, deadline);
+    }
+
+    private boolean start(UUID kioskId, KioskSlot slot, List<ByteString> images, Deadline deadline) {
+        Semaphore budget;
+        try {
+            budget = budgetFor(kioskId);
+        } catch (RuntimeException e) {
+            release(slot);
+            throw e;
+        }
+        if (!budget.tryAcquire()) {
+            posBusyCounter.increment();
+            log.warn("[FaceAnalysisCoalescer] kioskId: {} 포스 동시 분석 한도({}) 초과로 거절", kioskId, posConcurrency);
+            release(slot);
+            sseService.sendWaitingEvent(kioskId, false);
+            return false;
+        }
+
+        long startedAt = System.nanoTime();
+        CompletableFuture<Void> analysis = faceAnalysisService.submitAnalysis(kioskId, images, deadline);
+        if (analysis.isCompletedExceptionally()) {
+            executorBusyCounter.increment();
+            budget.release();
+            release(slot);
+            return false;
+        }
+
+        startedCounter.increment();
+        analysis.whenComplete((ignored, error) -> {
+            budget.release();
+            latencyTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            runPending(kioskId, slot);
+        });
+        return true;
+    }
+
+    /**
+     * 스트리밍 캡처가 키오스크의 실행 자리를 차지한다. 스트림이 끝나면 {@link #endStream} 으로 돌려주어야 한다.
+     *
+     * @param kioskId 키오스크 식별자
+     * @return 자리를 차지했으면 true, 같은 키오스크의 분석이 진행 중이면 false
+     */
+    public boolean startStream(UUID kioskId) {
+        KioskSlot slot = slotsByKiosk.computeIfAbsent(kioskId, id -> new KioskSlot());
+        synchronized (slot) {
+            if (slot.running) {
+                kioskBusyCounter.increment();
+                log.debug("[FaceAnalysisCoalescer] kioskId: {} 분석 중이라 스트리밍 캡처를 거절", kioskId);
+                return false;
+            }
+            slot.running = true;
+        }
+        startedCounter.increment();
+        return true;
+    }
+
+    /**
+     * 스트리밍 캡처의 프레임 한 장을 포스 동시 분석 한도 안에서 분석한다.
+     *
+     * @param kioskId  키오스크 식별자 ({@link #startStream} 으로 자리를 차지한 키오스크)
+     * @param image    키오스크가 보낸 이미지
+     * @param deadline 분석 마감 시간
+     * @return 분석 결과, 포스 동시 분석 한도 또는 실행기 대기열을 넘었으면 TaskRejectedException 으로 실패한 future
+     */
+    public CompletableFuture<FrameAnalysis> analyzeFrame(UUID kioskId, ByteString image, Deadline deadline) {
+        Semaphore budget;
+        try {
+            budget = budgetFor(kioskId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!budget.tryAcquire()) {
+            posBusyCounter.increment();
+            log.warn("[FaceAnalysisCoalescer] kioskId: {} 포스 동시 분석 한도({}) 초과로 프레임 거절", kioskId, posConcurrency);
+            return CompletableFuture.failedFuture(new TaskRejectedException("POS face analysis limit reached"));
+        }
+
+        CompletableFuture<FrameAnalysis> analysis = faceAnalysisService.analyzeFrameAsync(image, deadline);
+        if (analysis.isCompletedExceptionally()) {
+            executorBusyCounter.increment();
+        }
+        return analysis.whenComplete((ignored, error) -> budget.release());
+    }
+
+    /**
+     * 스트리밍 캡처가 차지한 실행 자리를 돌려주고, 그동안 대기한 캡처가 있으면 이어서 실행한다.
+     */
+    public void endStream(UUID kioskId) {
+        KioskSlot slot = slotsByKiosk.get(kioskId);
+        if (slot != null) {
+            runPending(kioskId, slot);
+        }
+    }
+
+    // 분석이 끝나면 대기 중인 최신 캡처를 이어서 실행한다.
+    private void runPending(UUID kioskId, KioskSlot slot) {
+        List<ByteString> next;
+        Deadline deadline;
+        synchronized (slot) {
+            next = slot.pending;
+            deadline = slot.pendingDeadline;
+            slot.pending = null;
+            slot.pendingDeadline = null;
+            if (next == null) {
+                slot.running = false;
+                return;
+            }
+        }
+        start(kioskId, slot, next, deadline);
+    }
+
+    // 분석을 시작하지 못했으면 대기 캡처도 함께 버린다.
+    private void release(KioskSlot slot) {
+        synchronized (slot) {
+            slot.pending = null;
+            slot.pendingDeadline = null;
+            slot.running = false;
+        }
+    }
+
+    private Semaphore budgetFor(UUID kioskId) {
+        return budgetsByPos.computeIfAbsent(kioskPosCache.getPosId(kioskId), id -> new Semaphore(posConcurrency));
+    }
+
+    // 키오스크별 실행 상태와 대기 중인 최신 캡처
+    private static class KioskSlot {
+        boolean running;
+        List<ByteString> pending;
+        Deadline pendingDeadline;
+    }
+}
@@ -1,114 +1,218 @@
 package com.example.pinokkio.api.customer;
 
+import com.example.pinokkio.api.customer.analysis.FaceAnalyzer;
 import com.example.pinokkio.api.customer.dto.response.AnalysisResult;
+import com.example.pinokkio.api.customer.dto.response.FrameAnalysis;
 import com.example.pinokkio.api.customer.sse.SSEService;
+import com.example.pinokkio.config.AsyncConfig;
+import com.example.pinokkio.exception.domain.customer.FaceAnalysisUnavailableException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.google.protobuf.ByteString;
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 키오스크가 보낸 이미지를 분석하고 고객을 찾는다.
+ * <p>
+ * 분석(FaceAnalyzer)과 고객 매칭은 전용 실행기에서 DB 트랜잭션 밖에서 수행되며, 결과는 SSE 로만 전달된다.
+ * 분석 서버를 사용할 수 없으면 인식을 건너뛰고 키오스크가 비회원으로 계속 진행하게 한다.
+ */
 @Service
-@Transactional(readOnly = true)
-@RequiredArgsConstructor
 @Slf4j
 public class FaceAnalysisService {
 
-    @Value("${fastapi.url}")
-    private String fastApiUrl;
-
     @Value("${redis.cache.ttl}")
     private long redisCacheTTL;
 
-    private final RestTemplate restTemplate;
+    // 키오스크가 gRPC 마감 시간을 주지 않았을 때의 분석 마감 시간
+    @Value("${face.analysis.deadline:3s}")
+    private Duration defaultDeadline;
+
+    private final FaceAnalyzer faceAnalyzer;
     private final SSEService sseService;
     private final CustomerService customerService;
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final TaskExecutor faceAnalysisExecutor;
+    private final MeterRegistry meterRegistry;
+    private final FrameAnalysisCache frameAnalysisCache;
+
+    public FaceAnalysisService(FaceAnalyzer faceAnalyzer,
+                               SSEService sseService,
+                               CustomerService customerService,
+                               RedisTemplate<String, Object> redisTemplate,
+                               ObjectMapper objectMapper,
+                               @Qualifier(AsyncConfig.FACE_ANALYSIS_EXECUTOR) TaskExecutor faceAnalysisExecutor,
+                               MeterRegistry meterRegistry,
+                               FrameAnalysisCache frameAnalysisCache) {
+        this.faceAnalyzer = faceAnalyzer;
+        this.sseService = sseService;
+        this.customerService = customerService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.faceAnalysisExecutor = faceAnalysisExecutor;
+        this.meterRegistry = meterRegistry;
+        this.frameAnalysisCache = frameAnalysisCache;
+    }
 
     /**
-     * 이미지 리스트를 반환한 결
-     * @param images 이미지 리스트
-     * @return 이미지 리스트를 분석한 결과를
+     * @param requested gRPC 요청에 실린 마감 시간 (없으면 null)
+     * @return 분석에 적용할 마감 시간
      */
-    public AnalysisResult analyzeImages(UUID kioskId, List<String> images) throws JsonProcessingException {
-        log.info("Starting image analysis for {} images.", images.size());
+    public Deadline deadlineFor(Deadline requested) {
+        return requested != null ? requested : Deadline.after(defaultDeadline.toNanos(), TimeUnit.NANOSECONDS);
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    /**
+     * 이미지 분석을 얼굴 분석 실행기에 맡기고 바로 반환한다.
+     * 분석이 끝나면 결과(또는 대기 상태 해제)가 SSE 로 전송된다.
+     *
+     * @param kioskId  키오스크 식별자
+     * @param images   키오스크가 보낸 이미지 리스트
+     * @param deadline 분석 마감 시간
+     * @return 분석이 끝나면 완료되는 future, 대기열이 가득 차 거절되었으면 TaskRejectedException 으로 실패한 future
+     */
+    public CompletableFuture<Void> submitAnalysis(UUID kioskId, List<ByteString> images, Deadline deadline) {
+        try {
+            return CompletableFuture.runAsync(() -> runAnalysis(kioskId, images, deadline), faceAnalysisExecutor);
+        } catch (TaskRejectedException e) {
+            log.warn("Face analysis queue is full. Rejecting images from kiosk {}.", kioskId);
+            sseService.sendWaitingEvent(kioskId, false);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("images", images);
+    private void runAnalysis(UUID kioskId, List<ByteString> images, Deadline deadline) {
+        try {
+            analyzeImages(kioskId, images, deadline);
+            log.info("Image analysis completed successfully for kiosk: {}", kioskId);
+        } catch (Exception e) {
+            log.error("Error during image analysis for kiosk: {}", kioskId, e);
+        } finally {
+            sseService.sendWaitingEvent(kioskId, false);
+        }
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+    /**
+     * 이미지 리스트에서 얼굴을 분석하고, 얼굴이 있으면 고객을 찾는다.
+     * 대기 상태 해제는 전송하지 않는다. (runAnalysis 가 끝날 때 한 번 전송한다)
+     *
+     * @param kioskId  키오스크 식별자
+     * @param images   키오스크가 보낸 이미지 리스트
+     * @param deadline 분석 마감 시간
+     * @return 얼굴 분석 결과, 얼굴이 없거나 인식을 건너뛰었으면 null
+     */
+    public AnalysisResult analyzeImages(UUID kioskId, List<ByteString> images, Deadline deadline) {
+        log.info("Starting image analysis for {} images.", images.size());
 
+        // 같은 프레임을 다시 보낸 경우 분석 서버를 호출하지 않는다.
+        String frameKey = frameAnalysisCache.keyOf(images);
+        AnalysisResult cachedResult = frameAnalysisCache.get(frameKey);
+        if (cachedResult != null) {
+            log.info("Reusing analysis result for identical frames from kiosk {}.", kioskId);
+            completeAnalysis(kioskId, cachedResult);
+            return cachedResult;
+        }
+
+        FrameAnalysis analysis;
+        long requestedAt = System.nanoTime();
         try {
-            log.debug("Sending request to FastAPI at {}.", fastApiUrl + "/fast/analyze_faces");
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    fastApiUrl + "/fast/analyze_faces",
-                    HttpMethod.POST,
-                    request,
-                    Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Received successful response from FastAPI with status code {}.", response.getStatusCode());
-
-                if (response.getBody() != null) {
-                    Map<String, Object> responseBody = response.getBody();
-                    log.debug("Response body: {}", responseBody);
-
-                    if (responseBody.containsKey("result")) {
-                        Map<String, Object> resultMap = (Map<String, Object>) responseBody.get("result");
-                        String embeddingString = objectMapper.writeValueAsString(resultMap.get("encrypted_embedding"));
-                        String encodedEmbedding = Base64.getEncoder().encodeToString(embeddingString.getBytes());
-
-                        AnalysisResult result = new AnalysisResult(
-                                ((Number) resultMap.get("age")).intValue(),
-                                (String) resultMap.get("gender"),
-                                (Boolean) resultMap.get("is_face"),
-                                encodedEmbedding
-                        );
-
-                        log.info("Analysis result processed: Age - {}, Gender - {}, Is Face - {}, faceEmbedding - {}",
-                                result.getAge(), result.getGender(), result.isFace(), result.getEncryptedEmbedding());
-
-                        if (result.isFace()) {
-                            log.debug("Face detected. Caching analysis result and proceeding with customer search.");
-                            cacheAnalysisResult(result);
-                            customerService.findCustomer(kioskId, result);
-                            return result;
-                        } else {
-                            log.info("No face detected. Sending waiting event.");
-                            sseService.sendWaitingEvent(false);
-                            return null;
-                        }
-                    }
-                }
-            } else {
-                log.warn("Received non-successful response from FastAPI: {}", response.getStatusCode());
-            }
+            analysis = faceAnalyzer.analyze(images, deadline);
+        } catch (FaceAnalysisUnavailableException e) {
+            skipRecognition(kioskId, e.getReason());
+            return null;
+        }
+        long inferenceNanos = System.nanoTime() - requestedAt;
 
-            log.info("No valid result found in response. Sending waiting event.");
-            sseService.sendWaitingEvent(false);
+        if (!analysis.isFace()) {
+            log.info("No face detected in images from kiosk {}.", kioskId);
             return null;
-        } catch (RestClientException e) {
-            log.error("Error occurred while communicating with FastAPI: {}", e.getMessage(), e);
-            sseService.sendWaitingEvent(false);
-            throw e;
-        } catch (Exception e) {
-            log.error("Unexpected error occurred: {}", e.getMessage(), e);
-            sseService.sendWaitingEvent(false);
-            throw e;
         }
+
+        AnalysisResult result = analysis.getResult();
+        log.info("Analysis result processed: Age - {}, Gender - {}, Is Face - {}, faceEmbedding - {}",
+                result.getAge(), result.getGender(), result.isFace(), result.getEncryptedEmbedding());
+        frameAnalysisCache.put(frameKey, result, inferenceNanos);
+        completeAnalysis(kioskId, result);
+        return result;
+    }
+
+    /**
+     * 이미지 한 장을 분석 실행기에서 분석한다. (스트리밍 캡처용)
+     *
+     * @param image    키오스크가 보낸 이미지
+     * @param deadline 분석 마감 시간
+     * @return 분석 결과, 실행기가 가득 차 있으면 TaskRejectedException,
+     * 분석 서버를 사용할 수 없으면 FaceAnalysisUnavailableException 으로 실패한 future
+     */
+    public CompletableFuture<FrameAnalysis> analyzeFrameAsync(ByteString image, Deadline deadline) {
+        try {
+            return CompletableFuture.supplyAsync(() -> faceAnalyzer.analyzeFrame(image, deadline), faceAnalysisExecutor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 분석 서버를 사용할 수 없을 때 인식을 건너뛰고 키오스크가 비회원으로 계속 진행하게 한다.
+     * 대기 상태 해제는 캡처를 마무리하는 호출자가 한 번만 전송한다.
+     *
+     * @param kioskId 키오스크 식별자
+     * @param reason  건너뛴 이유 (circuit_open, deadline_exceeded, remote_error ...)
+     */
+    public void skipRecognition(UUID kioskId, String reason) {
+        log.warn("Skipping face recognition for kiosk {}. reason: {}", kioskId, reason);
+        meterRegistry.counter("face.analysis.degraded", "reason", reason).increment();
+        sseService.sendRecognitionSkipped(kioskId, reason);
+    }
+
+    /**
+     * 얼굴이 확인된 분석 결과로 고객 찾기를 분석 실행기에 맡긴다.
+     * 결과와 대기 상태 해제는 SSE 로 전송된다.
+     *
+     * @param kioskId 키오스크 식별자
+     * @param result  얼굴 분석 결과
+     * @return 고객 찾기와 대기 상태 해제 전송이 끝나면 완료되는 future,
+     *         대기열이 가득 차 거절되었으면 TaskRejectedException 으로 실패한 future
+     */
+    public CompletableFuture<Void> submitCompletion(UUID kioskId, AnalysisResult result) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    completeAnalysis(kioskId, result);
+                } catch (Exception e) {
+                    log.error("Error during customer search for kiosk: {}", kioskId, e);
+                } finally {
+                    sseService.sendWaitingEvent(kioskId, false);
+                }
+            }, faceAnalysisExecutor);
+        } catch (TaskRejectedException e) {
+            log.warn("Face analysis queue is full. Dropping analysis result from kiosk {}.", kioskId);
+            sseService.sendWaitingEvent(kioskId, false);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 얼굴이 확인된 분석 결과를 캐싱하고 고객을 찾는다. 결과는 SSE 로 전송된다.
+     */
+    private void completeAnalysis(UUID kioskId, AnalysisResult result) {
+        log.debug("Face detected. Caching analysis result and proceeding with customer search.");
+        cacheAnalysisResult(result);
+        customerService.findCustomer(kioskId, result);
     }
 
     /**
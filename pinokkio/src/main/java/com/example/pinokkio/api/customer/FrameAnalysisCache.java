@@ -0,0 +1,157 @@
+package com.example.pinokkio.api.customer;
+
+import com.example.pinokkio.api.customer.dto.response.AnalysisResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 입력 프레임 내용 해시로 얼굴 분석 결과를 캐시한다.
+ * <p>
+ * 키오스크가 gRPC 오류 후 재시도하거나 카메라가 멈춰 같은 프레임을 다시 보내면, 분석 서버를 호출하지 않고
+ * 직전 결과를 돌려준다. 키는 프레임 바이트의 SHA-256, 값은 분석 결과와 당시 분석 서버 호출 시간이다.
+ * 적중률은 face.analysis.frame.cache, 절약한 분석 시간은 face.analysis.frame.cache.saved 지표로 노출된다.
+ */
+@Component
+@Slf4j
+public class FrameAnalysisCache {
+
+    private static final String KEY_PREFIX = "analysis_frames:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    @Value("${face.analysis.frame-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${face.analysis.frame-cache.ttl:30s}")
+    private Duration ttl;
+
+    public FrameAnalysisCache(RedisTemplate<String, Object> redisTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.hitCounter = meterRegistry.counter("face.analysis.frame.cache", "result", "hit");
+        this.missCounter = meterRegistry.counter("face.analysis.frame.cache", "result", "miss");
+        FunctionCounter.builder("face.analysis.frame.cache.saved", savedNanos,
+                        nanos -> nanos.get() / (double) TimeUnit.SECONDS.toNanos(1))
+                .description("캐시 적중으로 생략한 분석 서버 호출 시간")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("face.analysis.frame.cache.hit.ratio", this, FrameAnalysisCache::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param images 키오스크가 보낸 이미지 리스트
+     * @return 캐시 키, 캐시를 사용하지 않으면 null
+     */
+    public String keyOf(List<ByteString> images) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            for (ByteString image : images) {
+                // 프레임 경계가 달라도 같은 키가 나오지 않도록 길이를 함께 넣는다.
+                digest.update(length.clear().putInt(image.size()).flip());
+                digest.update(image.asReadOnlyByteBuffer());
+            }
+            return KEY_PREFIX + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param key keyOf 로 만든 캐시 키
+     * @return 같은 프레임의 직전 분석 결과, 없으면 null
+     */
+    public AnalysisResult get(String key) {
+        if (key == null) {
+            return null;
+        }
+        Object cached;
+        try {
+            cached = redisTemplate.opsForValue().get(key);
+        } catch (DataAccessException e) {
+            log.warn("[FrameAnalysisCache] Redis 조회 실패. 분석 서버를 호출합니다. key: {}", key, e);
+            cached = null;
+        }
+        if (cached == null) {
+            missCounter.increment();
+            return null;
+        }
+        try {
+            CachedAnalysis analysis = objectMapper.readValue(String.valueOf(cached), CachedAnalysis.class);
+            hitCounter.increment();
+            savedNanos.addAndGet(analysis.getInferenceNanos());
+            return analysis.getResult();
+        } catch (JsonProcessingException e) {
+            log.warn("[FrameAnalysisCache] 캐시 값을 읽지 못했습니다. key: {}", key, e);
+            missCounter.increment();
+            return null;
+        }
+    }
+
+    /**
+     * @param key            keyOf 로 만든 캐시 키
+     * @param result         분석 결과
+     * @param inferenceNanos 분석 서버 호출에 걸린 시간
+     */
+    public void put(String key, AnalysisResult result, long inferenceNanos) {
+        if (key == null) {
+            return;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(new CachedAnalysis(result, inferenceNanos));
+            redisTemplate.opsForValue().set(key, json, ttl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("[FrameAnalysisCache] 분석 결과를 캐시하지 못했습니다. key: {}", key, e);
+        }
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    // 캐시에 저장하는 분석 결과와 당시 분석 서버 호출 시간
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class CachedAnalysis {
+        private AnalysisResult result;
+        private long inferenceNanos;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.pinokkio.api.customer.analysis;
+
+import java.util.Arrays;
+
+/**
+ * 분석 서버 호출용 서킷 브레이커.
+ * <p>
+ * CLOSED: 최근 windowSize 건 중 실패 비율이 failureRate 이상이면 OPEN 으로 바뀐다. (최소 windowSize / 2 건 이후)
+ * OPEN: openNanos 동안 모든 호출을 거절한 뒤 HALF_OPEN 으로 바뀐다.
+ * HALF_OPEN: 시험 호출 한 건만 허용하여 성공하면 CLOSED, 실패하면 다시 OPEN 으로 바뀐다.
+ */
+class AnalysisCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] failed;
+    private final int minimumCalls;
+    private final double failureRate;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int index;
+    private int count;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    AnalysisCircuitBreaker(int windowSize, double failureRate, long openNanos) {
+        this.failed = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, failed.length / 2);
+        this.failureRate = failureRate;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * @return 호출해도 되면 true (true 를 받은 호출은 반드시 onSuccess, onFailure 또는 release 를 알려야 한다)
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && count >= minimumCalls && failures >= failureRate * count) {
+            open();
+        }
+    }
+
+    /**
+     * 호출하지 못했거나 분석 서버의 결과로 볼 수 없는 호출의 허가를 결과 없이 돌려준다.
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (count == failed.length) {
+            if (failed[index]) {
+                failures--;
+            }
+        } else {
+            count++;
+        }
+        failed[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % failed.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        reset();
+    }
+
+    private void reset() {
+        Arrays.fill(failed, false);
+        index = 0;
+        count = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.pinokkio.api.customer.analysis;
+
+/**
+ * 분석 서버로 이미지를 보내는 방식
+ */
+public enum FaceAnalysisTransport {
+    // Base64 문자열을 JSON 본문에 담아 전송 (기존 방식)
+    JSON,
+    // 키오스크가 보낸 프레임을 이미지 바이트로 풀어 multipart / octet-stream 본문에 전송
+    BINARY
+}
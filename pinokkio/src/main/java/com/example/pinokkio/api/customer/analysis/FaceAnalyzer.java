@@ -0,0 +1,35 @@
+package com.example.pinokkio.api.customer.analysis;
+
+import com.example.pinokkio.api.customer.dto.response.FrameAnalysis;
+import com.example.pinokkio.exception.domain.customer.FaceAnalysisUnavailableException;
+import com.google.protobuf.ByteString;
+import io.grpc.Deadline;
+
+import java.util.List;
+
+/**
+ * 키오스크 이미지에서 얼굴(나이, 성별, 임베딩)을 분석한다.
+ * 구현은 face.analysis.analyzer 로 선택한다. (remote: FastAPI 분석 서버, stub: 네트워크 없는 부하 테스트용)
+ */
+public interface FaceAnalyzer {
+
+    /**
+     * 여러 장의 이미지 중 가장 확실한 얼굴을 분석한다.
+     *
+     * @param images   키오스크가 보낸 이미지 리스트
+     * @param deadline 분석 결과를 기다릴 마감 시간
+     * @return 분석 결과 (얼굴이 없으면 result 가 null)
+     * @throws FaceAnalysisUnavailableException 분석 서버를 사용할 수 없거나 마감 시간을 넘긴 경우
+     */
+    FrameAnalysis analyze(List<ByteString> images, Deadline deadline);
+
+    /**
+     * 이미지 한 장을 분석한다. (스트리밍 캡처용)
+     *
+     * @param image    키오스크가 보낸 이미지
+     * @param deadline 분석 결과를 기다릴 마감 시간
+     * @return 분석 결과 (얼굴이 없으면 result 가 null)
+     * @throws FaceAnalysisUnavailableException 분석 서버를 사용할 수 없거나 마감 시간을 넘긴 경우
+     */
+    FrameAnalysis analyzeFrame(ByteString image, Deadline deadline);
+}
@@ -0,0 +1,517 @@
+package com.example.pinokkio.api.customer.analysis;
+
+import com.example.pinokkio.api.customer.dto.response.AnalysisResult;
+import com.example.pinokkio.api.customer.dto.response.FrameAnalysis;
+import com.example.pinokkio.api.customer.embedding.FaceEmbedding;
+import com.example.pinokkio.api.customer.embedding.FaceEmbeddingCodec;
+import com.example.pinokkio.config.RestTemplateConfig;
+import com.example.pinokkio.exception.domain.customer.FaceAnalysisUnavailableException;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import com.sun.management.ThreadMXBean;
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FastAPI 분석 서버를 호출하는 분석기.
+ * <p>
+ * 호출은 서킷 브레이커를 거치며, 최근 응답 시간의 p95 가 지나도 응답이 없으면 같은 요청을 한 번 더 보내(hedging)
+ * 먼저 도착한 응답을 사용하고 늦은 요청은 중단한다. 요청마다 남은 마감 시간을 응답 대기 시간으로 적용한다.
+ * 마감 시간까지 응답이 없거나 브레이커가 열려 있으면
+ * FaceAnalysisUnavailableException 을 던져 호출한 쪽이 인식을 건너뛰게 한다.
+ */
+@Component
+@ConditionalOnProperty(name = "face.analysis.analyzer", havingValue = "remote", matchIfMissing = true)
+@Slf4j
+public class RemoteFaceAnalyzer implements FaceAnalyzer {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    // 지금 스레드가 보내는 요청. 요청 팩토리가 만든 HTTP 요청을 여기에 연결한다.
+    private static final ThreadLocal<Exchange> CURRENT_EXCHANGE = new ThreadLocal<>();
+
+    private final RestTemplate restTemplate;
+    private final FaceEmbeddingCodec faceEmbeddingCodec;
+    private final MeterRegistry meterRegistry;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_SAMPLES);
+
+    private ThreadPoolExecutor httpExecutor;
+    private AnalysisCircuitBreaker breaker;
+    private Counter hedgeSentCounter;
+    private Counter hedgeWonCounter;
+
+    @Value("${fastapi.url}")
+    private String fastApiUrl;
+
+    @Value("${fastapi.transport:binary}")
+    private FaceAnalysisTransport transport;
+
+    // 분석 서버로 동시에 보낼 수 있는 요청 수 (두 번째 요청 포함). 넘으면 두 번째 요청을 보내지 않는다.
+    @Value("${face.analysis.http.max-concurrency:40}")
+    private int httpConcurrency;
+
+    @Value("${face.analysis.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${face.analysis.hedge.min-delay:200ms}")
+    private Duration hedgeMinDelay;
+
+    @Value("${face.analysis.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${face.analysis.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${face.analysis.breaker.open-duration:30s}")
+    private Duration breakerOpenDuration;
+
+    // 분석 서버가 이 시간 안에 응답하지 못했을 때만 시간 초과를 실패로 센다.
+    @Value("${face.analysis.breaker.response-budget:${face.analysis.deadline:3s}}")
+    private Duration breakerResponseBudget;
+
+    public RemoteFaceAnalyzer(CloseableHttpClient pooledHttpClient,
+                              FaceEmbeddingCodec faceEmbeddingCodec,
+                              MeterRegistry meterRegistry) {
+        DeadlineRequestFactory requestFactory = new DeadlineRequestFactory(pooledHttpClient);
+        requestFactory.setConnectTimeout(RestTemplateConfig.CONNECT_TIMEOUT_MILLIS);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.faceEmbeddingCodec = faceEmbeddingCodec;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        httpExecutor = new ThreadPoolExecutor(httpConcurrency, httpConcurrency, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "face-analysis-http-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        httpExecutor.allowCoreThreadTimeOut(true);
+        breaker = new AnalysisCircuitBreaker(breakerWindowSize, breakerFailureRate, breakerOpenDuration.toNanos());
+        hedgeSentCounter = meterRegistry.counter("face.analysis.hedge", "result", "sent");
+        hedgeWonCounter = meterRegistry.counter("face.analysis.hedge", "result", "won");
+        Gauge.builder("face.analysis.breaker.state", breaker, b -> b.getState().ordinal())
+                .description("분석 서버 서킷 브레이커 상태 (0: closed, 1: open, 2: half-open)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpExecutor.shutdownNow();
+    }
+
+    @Override
+    public FrameAnalysis analyze(List<ByteString> images, Deadline deadline) {
+        RequestCallback request = transport == FaceAnalysisTransport.BINARY
+                ? multipartCallback(images.stream().map(RemoteFaceAnalyzer::imageBytes).toList())
+                : jsonCallback(Map.of("images", images.stream().map(ByteString::toStringUtf8).toList()));
+        return call("/fast/analyze_faces", request, deadline);
+    }
+
+    @Override
+    public FrameAnalysis analyzeFrame(ByteString image, Deadline deadline) {
+        RequestCallback request = transport == FaceAnalysisTransport.BINARY
+                ? octetStreamCallback(imageBytes(image))
+                : jsonCallback(Map.of("image", image.toStringUtf8()));
+        return call("/fast/analyze_face", request, deadline);
+    }
+
+    private FrameAnalysis call(String path, RequestCallback request, Deadline deadline) {
+        if (deadline.isExpired()) {
+            throw new FaceAnalysisUnavailableException("deadline_exceeded");
+        }
+        if (!breaker.tryAcquire()) {
+            throw new FaceAnalysisUnavailableException("circuit_open");
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            FrameAnalysis analysis = hedged(path, request, deadline);
+            breaker.onSuccess();
+            latencies.record(System.nanoTime() - startedAt);
+            return analysis;
+        } catch (TimeoutException e) {
+            long elapsed = System.nanoTime() - startedAt;
+            onTimeout(elapsed);
+            log.warn("Face analysis deadline exceeded after {} ms.", TimeUnit.NANOSECONDS.toMillis(elapsed));
+            throw new FaceAnalysisUnavailableException("deadline_exceeded", e);
+        } catch (RejectedExecutionException e) {
+            // 요청을 보내지 못했으므로 브레이커에 결과를 남기지 않는다.
+            breaker.release();
+            log.warn("Face analysis HTTP executor is full ({} requests in flight).", httpConcurrency);
+            throw new FaceAnalysisUnavailableException("http_busy", e);
+        } catch (ExecutionException e) {
+            // 분석 서버는 유효한 얼굴이 없으면 400 으로 응답한다. 서버 장애가 아니므로 얼굴 없음으로 처리한다.
+            // 그 밖의 4xx (인증, 경로, 크기 제한 등)는 설정이나 서버 문제이므로 실패로 센다.
+            if (e.getCause() instanceof HttpClientErrorException.BadRequest) {
+                breaker.onSuccess();
+                return new FrameAnalysis(null, 0);
+            }
+            // 요청별 응답 대기 시간은 마감 시간이므로, 마감 직후의 읽기 시간 초과도 마감 초과로 알린다.
+            if (deadline.isExpired()) {
+                onTimeout(System.nanoTime() - startedAt);
+                throw new FaceAnalysisUnavailableException("deadline_exceeded", e.getCause());
+            }
+            breaker.onFailure();
+            log.warn("Face analysis request failed: {}", e.getCause().getMessage());
+            throw new FaceAnalysisUnavailableException("remote_error", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.onFailure();
+            throw new FaceAnalysisUnavailableException("interrupted", e);
+        }
+    }
+
+    /**
+     * 마감 시간 초과를 브레이커에 남긴다.
+     * 호출한 쪽의 마감 시간이 응답 예산보다 짧아 먼저 끝난 경우는 분석 서버 장애가 아니므로 결과를 남기지 않는다.
+     * (짧은 마감 시간을 주는 키오스크 하나가 모든 포스의 브레이커를 열지 않게 한다)
+     */
+    private void onTimeout(long elapsedNanos) {
+        if (elapsedNanos >= breakerResponseBudget.toNanos()) {
+            breaker.onFailure();
+        } else {
+            breaker.release();
+        }
+    }
+
+    /**
+     * 첫 요청이 최근 p95 응답 시간 안에 끝나지 않으면 같은 요청을 한 번 더 보내고, 먼저 성공한 응답을 반환한다.
+     * 반환하거나 마감 시간이 지나면 끝나지 않은 요청을 중단한다.
+     *
+     * @throws RejectedExecutionException 첫 요청을 보낼 HTTP 스레드가 없으면
+     */
+    private FrameAnalysis hedged(String path, RequestCallback request, Deadline deadline)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        Exchange primaryExchange = new Exchange(deadline);
+        CompletableFuture<FrameAnalysis> primary = submit(path, request, primaryExchange);
+        try {
+            long hedgeDelay = hedgeDelayNanos();
+            if (hedgeDelay < 0 || hedgeDelay >= deadline.timeRemaining(TimeUnit.NANOSECONDS)) {
+                return primary.get(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            }
+            try {
+                return primary.get(hedgeDelay, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ignored) {
+                // 응답이 늦어 두 번째 요청을 보낸다.
+            }
+
+            Exchange hedgeExchange = new Exchange(deadline);
+            CompletableFuture<FrameAnalysis> hedge;
+            try {
+                hedge = submit(path, request, hedgeExchange);
+            } catch (RejectedExecutionException e) {
+                // HTTP 스레드가 모자라면 두 번째 요청 없이 첫 요청을 기다린다.
+                return primary.get(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            }
+            hedgeSentCounter.increment();
+            try {
+                return firstSuccess(primary, hedge).get(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            } finally {
+                cancelUnfinished(hedge, hedgeExchange);
+            }
+        } finally {
+            cancelUnfinished(primary, primaryExchange);
+        }
+    }
+
+    private CompletableFuture<FrameAnalysis> submit(String path, RequestCallback request, Exchange exchange) {
+        return CompletableFuture.supplyAsync(() -> post(path, request, exchange), httpExecutor);
+    }
+
+    // 먼저 성공한 응답으로 완료되고, 둘 다 실패하면 나중 실패로 완료된다.
+    private CompletableFuture<FrameAnalysis> firstSuccess(CompletableFuture<FrameAnalysis> primary,
+                                                          CompletableFuture<FrameAnalysis> hedge) {
+        CompletableFuture<FrameAnalysis> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((analysis, error) -> {
+            if (error == null) {
+                first.complete(analysis);
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        hedge.whenComplete((analysis, error) -> {
+            if (error == null) {
+                if (first.complete(analysis)) {
+                    hedgeWonCounter.increment();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        return first;
+    }
+
+    // 끝나지 않은 요청의 커넥션을 닫아 HTTP 스레드를 바로 돌려받는다.
+    private static void cancelUnfinished(CompletableFuture<FrameAnalysis> future, Exchange exchange) {
+        if (!future.isDone()) {
+            exchange.cancel();
+        }
+    }
+
+    private long hedgeDelayNanos() {
+        if (!hedgeEnabled) {
+            return -1;
+        }
+        long p95 = latencies.p95();
+        return p95 < 0 ? -1 : Math.max(hedgeMinDelay.toNanos(), p95);
+    }
+
+    private FrameAnalysis post(String path, RequestCallback request, Exchange exchange) {
+        ResponseEntity<Map> response;
+        CURRENT_EXCHANGE.set(exchange);
+        try {
+            response = send(path, request);
+        } finally {
+            CURRENT_EXCHANGE.remove();
+        }
+        Map<String, Object> responseBody = response.getBody();
+        if (!response.getStatusCode().is2xxSuccessful() || responseBody == null || !responseBody.containsKey("result")) {
+            log.warn("Received no analysis result from FastAPI: {}", response.getStatusCode());
+            return new FrameAnalysis(null, 0);
+        }
+
+        Map<String, Object> resultMap = (Map<String, Object>) responseBody.get("result");
+        double detScore = ((Number) resultMap.getOrDefault("det_score", 0)).doubleValue();
+        if (!Boolean.TRUE.equals(resultMap.get("is_face"))) {
+            return new FrameAnalysis(null, detScore);
+        }
+        return new FrameAnalysis(toAnalysisResult(resultMap), detScore);
+    }
+
+    /**
+     * 분석 서버로 요청을 보내고, 요청을 만들어 보내고 응답을 읽는 동안 현재 스레드가 할당한 힙 크기를 기록한다.
+     */
+    private ResponseEntity<Map> send(String path, RequestCallback request) {
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        try {
+            return restTemplate.execute(fastApiUrl + path, HttpMethod.POST, request,
+                    restTemplate.responseEntityExtractor(Map.class));
+        } finally {
+            DistributionSummary.builder("face.analysis.request.allocated.bytes")
+                    .description("분석 서버 요청 한 건을 처리하는 동안 할당된 힙 크기")
+                    .baseUnit("bytes")
+                    .tag("path", path)
+                    .tag("transport", transport.name().toLowerCase())
+                    .register(meterRegistry)
+                    .record(THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore);
+        }
+    }
+
+    private AnalysisResult toAnalysisResult(Map<String, Object> resultMap) {
+        // 수신 시점에 한 번 정규화하여 이후 검색에서는 내적만 계산한다.
+        FaceEmbedding embedding = FaceEmbedding.normalize(
+                faceEmbeddingCodec.fromJson(String.valueOf(resultMap.get("encrypted_embedding"))));
+        String encodedEmbedding = Base64.getEncoder().encodeToString(faceEmbeddingCodec.encode(embedding));
+
+        return new AnalysisResult(
+                ((Number) resultMap.get("age")).intValue(),
+                (String) resultMap.get("gender"),
+                (Boolean) resultMap.get("is_face"),
+                encodedEmbedding
+        );
+    }
+
+    private RequestCallback jsonCallback(Map<String, Object> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.httpEntityCallback(new HttpEntity<>(body, headers), Map.class);
+    }
+
+    /**
+     * 키오스크가 Base64 텍스트로 보낸 프레임을 이미지 바이트로 풀어 전송량을 3/4 로 줄인다.
+     * 이미 이미지 바이트이거나 Base64 로 읽을 수 없으면 그대로 보낸다. (분석 서버가 두 형식 모두 받는다)
+     */
+    static ByteString imageBytes(ByteString frame) {
+        if (!startsWithBase64(frame)) {
+            return frame;
+        }
+        try {
+            return UnsafeByteOperations.unsafeWrap(Base64.getMimeDecoder().decode(frame.asReadOnlyByteBuffer()));
+        } catch (IllegalArgumentException e) {
+            return frame;
+        }
+    }
+
+    // JPEG, PNG 등 이미지 바이트는 첫 바이트부터 Base64 문자 범위를 벗어난다.
+    private static boolean startsWithBase64(ByteString frame) {
+        if (frame.size() < 4) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            byte b = frame.byteAt(i);
+            boolean base64 = (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9')
+                    || b == '+' || b == '/';
+            if (!base64) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 이미지마다 images 파트 하나를 만들어 ByteString 을 그대로 요청 본문에 쓴다. (문자열 변환, JSON 직렬화 없음)
+     */
+    private static RequestCallback multipartCallback(List<ByteString> images) {
+        return request -> {
+            String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+            request.getHeaders().setContentType(
+                    new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary)));
+            writeBody(request, out -> {
+                for (int i = 0; i < images.size(); i++) {
+                    out.write(("--" + boundary + "\r\n"
+                            + "Content-Disposition: form-data; name=\"images\"; filename=\"frame" + i + "\"\r\n"
+                            + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    images.get(i).writeTo(out);
+                    out.write(CRLF);
+                }
+                out.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+            });
+        };
+    }
+
+    private static RequestCallback octetStreamCallback(ByteString image) {
+        return request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            request.getHeaders().setContentLength(image.size());
+            writeBody(request, image::writeTo);
+        };
+    }
+
+    private static void writeBody(ClientHttpRequest request, StreamingHttpOutputMessage.Body body) throws IOException {
+        if (request instanceof StreamingHttpOutputMessage streaming) {
+            streaming.setBody(body);
+        } else {
+            body.writeTo(request.getBody());
+        }
+    }
+
+    /**
+     * 분석 서버 요청 한 건. 남은 마감 시간을 커넥션 대기와 응답 대기 시간으로 적용하고, 중단할 수 있게 HTTP 요청을 붙잡아 둔다.
+     */
+    private static class Exchange {
+        private final Deadline deadline;
+        private HttpUriRequestBase request;
+        private boolean cancelled;
+
+        Exchange(Deadline deadline) {
+            this.deadline = deadline;
+        }
+
+        synchronized void bind(HttpUriRequestBase request, RequestConfig defaults) {
+            Timeout remaining = Timeout.ofMilliseconds(Math.max(1, deadline.timeRemaining(TimeUnit.MILLISECONDS)));
+            request.setConfig(RequestConfig.copy(defaults)
+                    .setConnectionRequestTimeout(remaining)
+                    .setResponseTimeout(remaining)
+                    .build());
+            this.request = request;
+            if (cancelled) {
+                request.cancel();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (request != null) {
+                request.cancel();
+            }
+        }
+    }
+
+    /**
+     * 지금 스레드의 {@link Exchange} 에 새 HTTP 요청을 연결하는 요청 팩토리.
+     */
+    private static class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        DeadlineRequestFactory(HttpClient httpClient) {
+            super(httpClient);
+        }
+
+        @Override
+        protected void postProcessHttpRequest(HttpUriRequest request) {
+            Exchange exchange = CURRENT_EXCHANGE.get();
+            if (exchange != null && request instanceof HttpUriRequestBase base) {
+                RequestConfig defaults = createRequestConfig(getHttpClient());
+                exchange.bind(base, defaults != null ? defaults : RequestConfig.DEFAULT);
+            }
+        }
+    }
+
+    /**
+     * 최근 응답 시간 표본으로 p95 를 계산한다. (16건마다 다시 계산)
+     */
+    private static class LatencyWindow {
+        private final long[] samples;
+        private int index;
+        private int count;
+        private long p95 = -1;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[index] = nanos;
+            index = (index + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            if (count >= MIN_LATENCY_SAMPLES && index % 16 == 0) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                p95 = sorted[(int) Math.ceil(count * 0.95) - 1];
+            }
+        }
+
+        synchronized long p95() {
+            return p95;
+        }
+    }
+}
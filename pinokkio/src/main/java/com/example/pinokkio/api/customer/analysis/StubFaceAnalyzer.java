@@ -0,0 +1,94 @@
+package com.example.pinokkio.api.customer.analysis;
+
+import com.example.pinokkio.api.customer.dto.response.AnalysisResult;
+import com.example.pinokkio.api.customer.dto.response.FrameAnalysis;
+import com.example.pinokkio.api.customer.embedding.FaceEmbedding;
+import com.example.pinokkio.api.customer.embedding.FaceEmbeddingCodec;
+import com.example.pinokkio.exception.domain.customer.FaceAnalysisUnavailableException;
+import com.google.protobuf.ByteString;
+import io.grpc.Deadline;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 네트워크 없이 캡처 → 매칭 → SSE 경로를 부하 테스트하기 위한 프로세스 내 분석기.
+ * <p>
+ * 이미지 내용 해시로 identities 명 중 한 사람을 고르고, 그 사람의 번호를 시드로 임베딩·나이·성별을 만든다.
+ * 같은 이미지는 항상 같은 사람으로 분석되므로 등록 후 재방문 매칭까지 재현할 수 있다.
+ * latency 를 주면 분석 서버 응답 시간을 흉내 낸다.
+ */
+@Component
+@ConditionalOnProperty(name = "face.analysis.analyzer", havingValue = "stub")
+@RequiredArgsConstructor
+@Slf4j
+public class StubFaceAnalyzer implements FaceAnalyzer {
+
+    private static final int DIMENSION = 512;
+    private static final double DET_SCORE = 0.99;
+
+    private final FaceEmbeddingCodec faceEmbeddingCodec;
+
+    @Value("${face.analysis.stub.identities:1000}")
+    private int identities;
+
+    @Value("${face.analysis.stub.latency:0ms}")
+    private Duration latency;
+
+    @Override
+    public FrameAnalysis analyze(List<ByteString> images, Deadline deadline) {
+        if (images.isEmpty()) {
+            return new FrameAnalysis(null, 0);
+        }
+        return analyzeIdentity(images.hashCode(), deadline);
+    }
+
+    @Override
+    public FrameAnalysis analyzeFrame(ByteString image, Deadline deadline) {
+        return analyzeIdentity(image.hashCode(), deadline);
+    }
+
+    private FrameAnalysis analyzeIdentity(int contentHash, Deadline deadline) {
+        simulateLatency(deadline);
+
+        int identity = Math.floorMod(contentHash, Math.max(1, identities));
+        Random random = new Random(identity);
+        float[] raw = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            raw[i] = (float) random.nextGaussian();
+        }
+        FaceEmbedding embedding = FaceEmbedding.normalize(raw);
+        int age = 15 + random.nextInt(60);
+        String gender = random.nextBoolean() ? "Male" : "Female";
+
+        AnalysisResult result = new AnalysisResult(
+                age,
+                gender,
+                true,
+                Base64.getEncoder().encodeToString(faceEmbeddingCodec.encode(embedding)));
+        return new FrameAnalysis(result, DET_SCORE);
+    }
+
+    private void simulateLatency(Deadline deadline) {
+        if (latency.isZero()) {
+            return;
+        }
+        if (latency.toNanos() > deadline.timeRemaining(TimeUnit.NANOSECONDS)) {
+            throw new FaceAnalysisUnavailableException("deadline_exceeded");
+        }
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FaceAnalysisUnavailableException("interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.pinokkio.api.customer.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 이미지 한 장의 얼굴 분석 결과
+ */
+@Getter
+@AllArgsConstructor
+public class FrameAnalysis {
+
+    // 얼굴이 확인되지 않았으면 null
+    private final AnalysisResult result;
+    // 얼굴 검출 신뢰도 (0 ~ 1)
+    private final double detScore;
+
+    public boolean isFace() {
+        return result != null;
+    }
+}
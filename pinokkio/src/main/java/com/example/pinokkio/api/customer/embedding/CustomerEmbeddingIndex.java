@@ -0,0 +1,303 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.api.customer.Customer;
+import com.example.pinokkio.api.customer.CustomerRepository;
+import com.example.pinokkio.common.type.Gender;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * 포스별 얼굴 임베딩 인덱스를 관리한다.
+ * 인덱스는 해당 포스의 첫 얼굴 조회 시 DB 에서 적재되고, 이후에는 고객 등록과 얼굴 삭제 시 갱신된다.
+ * 변경은 {@link CustomerIndexRelay} 로 다른 노드에도 전달되며, 놓친 변경은 refresh-interval 마다 다시 적재하여 맞춘다.
+ * 적재 중에 들어온 변경(삭제 포함)은 따로 기록해 두었다가 적재한 DB 스냅샷 위에 다시 반영한다.
+ * 검색 엔진은 face.index.mode 로 선택한다. (exact: 정확 탐색, hnsw: 근사 탐색, quantized: 양자화 후 재정렬)
+ * 고객당 메모리와 양자화 인덱스의 표본 재현율은 actuator metrics 로 노출한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerEmbeddingIndex {
+
+    private final CustomerRepository customerRepository;
+    private final FaceEmbeddingCodec faceEmbeddingCodec;
+    private final MeterRegistry meterRegistry;
+    private final CustomerIndexRelay customerIndexRelay;
+
+    private final Map<UUID, PosEntry> indexes = new ConcurrentHashMap<>();
+
+    @Value("${face.index.mode:exact}")
+    private FaceIndexMode mode;
+
+    @Value("${face.index.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${face.index.hnsw.ef-construction:100}")
+    private int hnswEfConstruction;
+
+    @Value("${face.index.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    @Value("${face.index.quantized.rerank-size:32}")
+    private int quantizedRerankSize;
+
+    @Value("${face.index.quantized.recall-sample-rate:0.01}")
+    private double quantizedRecallSampleRate;
+
+    @Value("${face.index.simd:true}")
+    private boolean simd;
+
+    // 적재한 지 이 시간이 지난 인덱스는 다음 조회 때 DB 에서 다시 적재한다. (중계로 놓친 변경을 맞춘다)
+    @Value("${face.index.refresh-interval:10m}")
+    private Duration refreshInterval;
+
+    @PostConstruct
+    public void init() {
+        boolean simdEnabled = VectorMath.useSimd(simd);
+        log.info("[CustomerEmbeddingIndex] 검색 모드: {}, SIMD 내적 커널 사용: {}", mode, simdEnabled);
+        customerIndexRelay.setListener(this::applyRelayed);
+
+        Gauge.builder("face.index.customers", this, index -> index.sum(FaceIndex::size))
+                .tag("mode", mode.name())
+                .description("얼굴 검색 인덱스에 적재된 고객 수")
+                .register(meterRegistry);
+        Gauge.builder("face.index.memory.bytes.per.customer", this, index -> index.bytesPerCustomer(FaceIndex::heapBytes))
+                .tag("mode", mode.name())
+                .tag("area", "heap")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("face.index.memory.bytes.per.customer", this, index -> index.bytesPerCustomer(FaceIndex::offHeapBytes))
+                .tag("mode", mode.name())
+                .tag("area", "offheap")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (mode == FaceIndexMode.QUANTIZED) {
+            Gauge.builder("face.index.quantized.recall", this, CustomerEmbeddingIndex::quantizedRecall)
+                    .description("표본 검색 중 전체 탐색과 같은 매칭 결과를 반환한 비율")
+                    .register(meterRegistry);
+            Gauge.builder("face.index.quantized.recall.samples", this,
+                            index -> index.sum(faceIndex -> ((QuantizedFaceIndex) faceIndex).getRecallSamples()))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 포스의 인덱스를 반환한다. 아직 적재되지 않았다면 DB 에서 적재한다.
+     * 적재한 지 refresh-interval 이 지났으면 다시 적재하며, 그동안 다른 조회는 기존 인덱스를 쓴다.
+     *
+     * @param posId 포스 식별자
+     * @return 포스의 얼굴 임베딩 인덱스
+     */
+    public FaceIndex forPos(UUID posId) {
+        PosEntry entry = entryOf(posId);
+        if (!entry.loaded) {
+            entry.loadLock.lock();
+            try {
+                if (!entry.loaded) {
+                    load(posId, entry);
+                }
+            } finally {
+                entry.loadLock.unlock();
+            }
+        } else if (System.currentTimeMillis() - entry.loadedAt > refreshInterval.toMillis()
+                && entry.loadLock.tryLock()) {
+            try {
+                if (System.currentTimeMillis() - entry.loadedAt > refreshInterval.toMillis()) {
+                    load(posId, entry);
+                }
+            } finally {
+                entry.loadLock.unlock();
+            }
+        }
+        return entry.index;
+    }
+
+    /**
+     * 포스 인덱스에서 검색 요청 한 건을 처리한다.
+     *
+     * @param posId     포스 식별자
+     * @param query     검색 요청
+     * @param threshold 매칭으로 인정할 최소 유사도
+     * @return 매칭 결과, 없으면 null
+     */
+    public FaceMatch findBest(UUID posId, FaceQuery query, double threshold) {
+        return forPos(posId).findBest(query.getVector(), query.getGender(), query.getMinAge(), query.getMaxAge(), threshold);
+    }
+
+    /**
+     * 포스 인덱스에서 여러 검색 요청을 한 번에 처리한다.
+     *
+     * @param posId     포스 식별자
+     * @param queries   검색 요청 목록
+     * @param threshold 매칭으로 인정할 최소 유사도
+     * @return 요청 순서와 같은 순서의 매칭 결과 목록 (매칭이 없으면 null 원소)
+     */
+    public List<FaceMatch> findBestBatch(UUID posId, List<FaceQuery> queries, double threshold) {
+        return forPos(posId).findBestBatch(queries, threshold);
+    }
+
+    /**
+     * 등록된 고객의 임베딩을 인덱스에 반영하고 다른 노드에 알린다.
+     * 커밋 뒤에 호출해야 한다. (이후의 적재는 이 고객이 담긴 스냅샷을 읽는다)
+     *
+     * @param posId     포스 식별자
+     * @param customer  고객 정보 (저장 형식의 얼굴 임베딩 포함)
+     * @param embedding 정규화된 얼굴 임베딩
+     */
+    public void upsert(UUID posId, Customer customer, FaceEmbedding embedding) {
+        apply(posId, customer.getId(), new IndexChange(customer.getGender(), customer.getAge(), embedding.getVector()));
+        customerIndexRelay.publishUpsert(posId, customer.getId(), customer.getGender(), customer.getAge(),
+                customer.getFaceEmbedding());
+    }
+
+    /**
+     * 고객을 포스 인덱스의 검색 대상에서 제외하고 다른 노드에 알린다.
+     * 커밋 뒤에 호출해야 한다.
+     *
+     * @param posId      포스 식별자
+     * @param customerId 고객 식별자
+     */
+    public void remove(UUID posId, UUID customerId) {
+        apply(posId, customerId, IndexChange.REMOVED);
+        customerIndexRelay.publishRemove(posId, customerId);
+    }
+
+    // 다른 노드가 커밋한 변경을 반영한다.
+    private void applyRelayed(UUID posId, UUID customerId, Gender gender, int age, byte[] embedding) {
+        if (embedding == null) {
+            apply(posId, customerId, IndexChange.REMOVED);
+            return;
+        }
+        try {
+            apply(posId, customerId, new IndexChange(gender, age, faceEmbeddingCodec.decode(embedding).getVector()));
+        } catch (IllegalArgumentException e) {
+            log.error("중계된 고객의 얼굴 임베딩을 인덱스에 반영하지 못했습니다. customerId = {}", customerId, e);
+        }
+    }
+
+    /**
+     * 변경을 포스 인덱스에 반영한다.
+     * 적재 중이면 변경을 기록해 두어, 그보다 먼저 읽은 DB 스냅샷이 삭제한 고객을 되살리거나 새 임베딩을 덮어쓰지 않게 한다.
+     */
+    private void apply(UUID posId, UUID customerId, IndexChange change) {
+        PosEntry entry = entryOf(posId);
+        synchronized (entry) {
+            change.applyTo(entry.index, customerId);
+            if (entry.changesDuringLoad != null) {
+                entry.changesDuringLoad.put(customerId, change);
+            }
+        }
+    }
+
+    private PosEntry entryOf(UUID posId) {
+        return indexes.computeIfAbsent(posId, id -> new PosEntry(newIndex()));
+    }
+
+    private FaceIndex newIndex() {
+        return switch (mode) {
+            case HNSW -> new HnswFaceIndex(hnswM, hnswEfConstruction, hnswEfSearch);
+            case QUANTIZED -> new QuantizedFaceIndex(quantizedRerankSize, quantizedRecallSampleRate);
+            case EXACT -> new ExactFaceIndex();
+        };
+    }
+
+    private double sum(ToLongFunction<FaceIndex> metric) {
+        long total = 0;
+        for (PosEntry entry : indexes.values()) {
+            total += metric.applyAsLong(entry.index);
+        }
+        return total;
+    }
+
+    private double bytesPerCustomer(ToLongFunction<FaceIndex> bytes) {
+        double customers = sum(FaceIndex::size);
+        return customers == 0 ? 0 : sum(bytes) / customers;
+    }
+
+    private double quantizedRecall() {
+        double samples = sum(index -> ((QuantizedFaceIndex) index).getRecallSamples());
+        return samples == 0 ? Double.NaN : sum(index -> ((QuantizedFaceIndex) index).getRecallMatches()) / samples;
+    }
+
+    // loadLock 을 잡은 채로 호출한다. 새 인덱스에 적재한 뒤 적재 중의 변경을 다시 반영하고 교체한다.
+    private void load(UUID posId, PosEntry entry) {
+        long start = System.currentTimeMillis();
+        synchronized (entry) {
+            entry.changesDuringLoad = new HashMap<>();
+        }
+        FaceIndex index = newIndex();
+        List<Customer> customers = customerRepository.findAllByPosId(posId);
+        for (Customer customer : customers) {
+            // 더미 고객은 얼굴 임베딩이 없다.
+            if (customer.getFaceEmbedding() == null) {
+                continue;
+            }
+            try {
+                index.upsert(customer.getId(), customer.getGender(), customer.getAge(),
+                        faceEmbeddingCodec.decode(customer.getFaceEmbedding()).getVector());
+            } catch (IllegalArgumentException e) {
+                log.error("고객의 얼굴 임베딩을 인덱스에 적재하지 못했습니다. customerId = {}", customer.getId(), e);
+            }
+        }
+        synchronized (entry) {
+            entry.changesDuringLoad.forEach((customerId, change) -> change.applyTo(index, customerId));
+            entry.changesDuringLoad = null;
+            entry.index = index;
+            entry.loadedAt = System.currentTimeMillis();
+            entry.loaded = true;
+        }
+        log.info("[CustomerEmbeddingIndex] posId: {} {} 인덱스 적재 완료. 고객 수: {}, 소요 시간: {}ms",
+                posId, mode, index.size(), System.currentTimeMillis() - start);
+    }
+
+    // 포스 인덱스와 DB 적재 상태를 담는 내부 클래스
+    private static class PosEntry {
+        final ReentrantLock loadLock = new ReentrantLock();
+        volatile FaceIndex index;
+        volatile boolean loaded;
+        volatile long loadedAt;
+        // 적재 중에 반영된 변경 (삭제는 REMOVED). 적재 중이 아니면 null 이며, 엔트리 잠금 안에서만 다룬다.
+        Map<UUID, IndexChange> changesDuringLoad;
+
+        PosEntry(FaceIndex index) {
+            this.index = index;
+        }
+    }
+
+    // 고객 한 명의 인덱스 변경. vector 가 null 이면 검색 대상에서 제외한다.
+    private static class IndexChange {
+        static final IndexChange REMOVED = new IndexChange(null, 0, null);
+
+        final Gender gender;
+        final int age;
+        final float[] vector;
+
+        IndexChange(Gender gender, int age, float[] vector) {
+            this.gender = gender;
+            this.age = age;
+            this.vector = vector;
+        }
+
+        void applyTo(FaceIndex index, UUID customerId) {
+            if (vector == null) {
+                index.remove(customerId);
+            } else {
+                index.upsert(customerId, gender, age, vector);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * 여러 백엔드 노드 사이의 얼굴 임베딩 인덱스 변경 중계.
+ * <p>
+ * 고객 등록이나 얼굴 삭제를 커밋한 노드는 자기 인덱스에 반영한 뒤 Redis 채널(face:index)에 변경을 발행하고,
+ * 다른 노드는 받은 변경을 자기 인덱스에 반영한다. 자기 노드가 발행한 메시지는 노드 식별자로 걸러낸다.
+ * pub/sub 은 연결이 끊긴 동안의 메시지를 다시 보내지 않으므로, 놓친 변경은 인덱스를 주기적으로 다시 적재하여 맞춘다.
+ */
+@Component
+@Slf4j
+public class CustomerIndexRelay implements MessageListener {
+
+    static final String CHANNEL = "face:index";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter publishFailedCounter;
+    private final Counter receivedCounter;
+
+    private volatile RelayListener listener;
+
+    @Value("${face.index.relay.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 다른 노드에서 발행된 인덱스 변경을 받는다.
+     */
+    interface RelayListener {
+        /**
+         * @param embedding 저장 형식의 얼굴 임베딩, 검색 대상에서 제외할 고객이면 null
+         */
+        void apply(UUID posId, UUID customerId, Gender gender, int age, byte[] embedding);
+    }
+
+    public CustomerIndexRelay(StringRedisTemplate stringRedisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.publishFailedCounter = meterRegistry.counter("face.index.relay.published", "result", "failed");
+        this.receivedCounter = meterRegistry.counter("face.index.relay.received");
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Face index relay is disabled. Index changes are applied to this node only.");
+            return;
+        }
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        log.info("Face index relay enabled. node: {}", nodeId);
+    }
+
+    void setListener(RelayListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 등록된 고객의 임베딩을 다른 노드에 알린다.
+     *
+     * @param embedding 저장 형식의 얼굴 임베딩
+     */
+    void publishUpsert(UUID posId, UUID customerId, Gender gender, int age, byte[] embedding) {
+        publish(new IndexChange(nodeId, posId, customerId, gender, age, embedding));
+    }
+
+    /**
+     * 검색 대상에서 제외한 고객을 다른 노드에 알린다.
+     */
+    void publishRemove(UUID posId, UUID customerId) {
+        publish(new IndexChange(nodeId, posId, customerId, null, 0, null));
+    }
+
+    private void publish(IndexChange change) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(change));
+        } catch (JsonProcessingException | DataAccessException e) {
+            // 다른 노드는 다음 재적재 때 DB 에서 변경을 읽는다.
+            publishFailedCounter.increment();
+            log.warn("Failed to relay face index change for customer {}: {}", change.getCustomerId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        IndexChange change;
+        try {
+            change = objectMapper.readValue(message.getBody(), IndexChange.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed face index relay message: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(change.getOrigin())) {
+            return;
+        }
+        RelayListener current = listener;
+        if (current != null) {
+            current.apply(change.getPosId(), change.getCustomerId(), change.getGender(), change.getAge(),
+                    change.getEmbedding());
+            receivedCounter.increment();
+        }
+    }
+
+    // Redis 채널로 주고받는 인덱스 변경
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class IndexChange {
+        private String origin;
+        private UUID posId;
+        private UUID customerId;
+        private Gender gender;
+        private int age;
+        private byte[] embedding;
+    }
+}
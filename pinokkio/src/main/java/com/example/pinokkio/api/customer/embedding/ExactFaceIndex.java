@@ -0,0 +1,400 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 한 포스에 등록된 고객들의 얼굴 임베딩을 성별 × 5세 나이대 버킷으로 나누어 보관하고 탐색하는 정확한 인덱스.
+ * <p>
+ * 각 버킷은 하나의 연속된 float 행렬이며, 임베딩은 수신 시점에 이미 L2 정규화되어 있으므로
+ * 코사인 유사도는 내적 한 번으로 계산된다.
+ * <p>
+ * 검색은 입력과 같은 성별·나이 범위의 버킷(링 0)부터 시작해, 나이대가 한 칸 멀어지거나 성별이 다를 때마다
+ * 링을 하나씩 넓혀 가며 임계값 이상인 고객이 나온 링에서 멈춘다. 각 버킷은 한 번만 탐색하므로
+ * 같은 고객을 두 번 계산하지 않는다.
+ * <p>
+ * 여러 요청을 함께 처리할 때도 링 순서는 같으며, 같은 링에서 한 버킷을 탐색해야 하는 요청들은 버킷의 행을
+ * BLOCK_ROWS 개씩 캐시에 올려 두고 함께 내적을 계산한다. 결과가 정해진 요청은 다음 링부터 빠진다.
+ */
+public class ExactFaceIndex implements FaceIndex {
+
+    static final int BAND_WIDTH = 5;
+    static final int BAND_COUNT = 24;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int BLOCK_ROWS = 16;
+    private static final int RING_COUNT = BAND_COUNT + 1;
+    private static final int ID_BYTES = Long.BYTES * 2;
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Bucket[] buckets = new Bucket[GENDERS.length * BAND_COUNT];
+    private final Map<UUID, Bucket> bucketByCustomerId = new HashMap<>();
+
+    private int dimension;
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bucketByCustomerId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long heapBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Bucket bucket : buckets) {
+                if (bucket != null) {
+                    bytes += (long) bucket.matrix.length * Float.BYTES
+                            + (long) bucket.customerIds.length * ID_BYTES
+                            + (long) bucket.ages.length * Integer.BYTES;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(UUID customerId, Gender gender, int age, float[] embedding) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = embedding.length;
+            }
+            if (embedding.length != dimension) {
+                throw new IllegalArgumentException(
+                        "임베딩 차원이 일치하지 않습니다. expected=" + dimension + ", actual=" + embedding.length);
+            }
+
+            Bucket target = bucket(gender, band(age));
+            Bucket previous = bucketByCustomerId.put(customerId, target);
+            if (previous != null && previous != target) {
+                previous.remove(customerId);
+            }
+            target.upsert(customerId, age, embedding);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(UUID customerId) {
+        lock.writeLock().lock();
+        try {
+            Bucket bucket = bucketByCustomerId.remove(customerId);
+            if (bucket != null) {
+                bucket.remove(customerId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public FaceMatch findBest(float[] query, Gender gender, int minAge, int maxAge, double threshold) {
+        lock.readLock().lock();
+        try {
+            if (bucketByCustomerId.isEmpty() || query.length != dimension) {
+                return null;
+            }
+
+            int lowBand = band(minAge);
+            int highBand = band(maxAge);
+            Scan scan = new Scan(query, minAge, maxAge);
+
+            // 링 0: 같은 성별, 나이 범위가 걸친 나이대. 나이 범위 안의 고객을 우선한다.
+            for (int band = lowBand; band <= highBand; band++) {
+                scanBucket(scan, gender, band, true);
+            }
+            if (scan.sliceSimilarity >= threshold) {
+                return new FaceMatch(scan.sliceCustomerId, scan.sliceSimilarity);
+            }
+            if (scan.bestSimilarity >= threshold) {
+                return new FaceMatch(scan.bestCustomerId, scan.bestSimilarity);
+            }
+
+            // 링 r: 같은 성별은 r 칸 떨어진 나이대, 다른 성별은 r - 1 칸 떨어진 나이대
+            for (int ring = 1; ring <= BAND_COUNT; ring++) {
+                for (Gender other : GENDERS) {
+                    int distance = other == gender ? ring : ring - 1;
+                    if (distance == 0) {
+                        for (int band = lowBand; band <= highBand; band++) {
+                            scanBucket(scan, other, band, false);
+                        }
+                    } else {
+                        scanBucket(scan, other, lowBand - distance, false);
+                        scanBucket(scan, other, highBand + distance, false);
+                    }
+                }
+                if (scan.bestSimilarity >= threshold) {
+                    return new FaceMatch(scan.bestCustomerId, scan.bestSimilarity);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FaceMatch> findBestBatch(List<FaceQuery> queries, double threshold) {
+        lock.readLock().lock();
+        try {
+            int queryCount = queries.size();
+            BatchScan scan = new BatchScan(queries, dimension);
+            FaceMatch[] matches = new FaceMatch[queryCount];
+            boolean[] done = new boolean[queryCount];
+            int remaining = 0;
+            for (int q = 0; q < queryCount; q++) {
+                // 차원이 다른 요청은 탐색하지 않는다.
+                done[q] = bucketByCustomerId.isEmpty() || scan.vectors[q] == null;
+                if (!done[q]) {
+                    remaining++;
+                }
+            }
+
+            // 단건 검색과 같은 링 순서로 진행하되, 한 버킷은 그 링에 해당하는 요청들과 함께 한 번에 탐색한다.
+            int[] active = new int[queryCount];
+            for (int ring = 0; ring < RING_COUNT && remaining > 0; ring++) {
+                for (Gender gender : GENDERS) {
+                    for (int band = 0; band < BAND_COUNT; band++) {
+                        Bucket bucket = buckets[gender.ordinal() * BAND_COUNT + band];
+                        if (bucket == null || bucket.size == 0) {
+                            continue;
+                        }
+                        int activeCount = 0;
+                        for (int q = 0; q < queryCount; q++) {
+                            if (!done[q] && scan.ring(q, gender, band) == ring) {
+                                active[activeCount++] = q;
+                            }
+                        }
+                        if (activeCount > 0) {
+                            bucket.scanBlocked(scan, active, activeCount, ring == 0);
+                        }
+                    }
+                }
+
+                for (int q = 0; q < queryCount; q++) {
+                    if (done[q]) {
+                        continue;
+                    }
+                    if (ring == 0 && scan.sliceSimilarities[q] >= threshold) {
+                        matches[q] = new FaceMatch(scan.sliceCustomerIds[q], scan.sliceSimilarities[q]);
+                    } else if (scan.bestSimilarities[q] >= threshold) {
+                        matches[q] = new FaceMatch(scan.bestCustomerIds[q], scan.bestSimilarities[q]);
+                    } else {
+                        continue;
+                    }
+                    done[q] = true;
+                    remaining--;
+                }
+            }
+            return Arrays.asList(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scanBucket(Scan scan, Gender gender, int band, boolean slice) {
+        if (band < 0 || band >= BAND_COUNT) {
+            return;
+        }
+        Bucket bucket = buckets[gender.ordinal() * BAND_COUNT + band];
+        if (bucket != null) {
+            bucket.scan(scan, slice);
+        }
+    }
+
+    private Bucket bucket(Gender gender, int band) {
+        int index = gender.ordinal() * BAND_COUNT + band;
+        if (buckets[index] == null) {
+            buckets[index] = new Bucket(dimension);
+        }
+        return buckets[index];
+    }
+
+    static int band(int age) {
+        return Math.max(0, Math.min(BAND_COUNT - 1, age / BAND_WIDTH));
+    }
+
+    /**
+     * 한 번의 검색 동안 누적되는 최고 유사도 (전체, 성별·나이 범위 내)
+     */
+    private static class Scan {
+        final float[] query;
+        final int minAge;
+        final int maxAge;
+
+        UUID bestCustomerId;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        UUID sliceCustomerId;
+        double sliceSimilarity = Double.NEGATIVE_INFINITY;
+
+        Scan(float[] query, int minAge, int maxAge) {
+            this.query = query;
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+        }
+    }
+
+    /**
+     * 여러 요청을 함께 검색하는 동안 요청별로 누적되는 최고 유사도
+     */
+    private static class BatchScan {
+        final float[][] vectors;
+        final Gender[] genders;
+        final int[] minAges;
+        final int[] maxAges;
+        final int[] lowBands;
+        final int[] highBands;
+
+        final double[] bestSimilarities;
+        final UUID[] bestCustomerIds;
+        final double[] sliceSimilarities;
+        final UUID[] sliceCustomerIds;
+
+        BatchScan(List<FaceQuery> queries, int dimension) {
+            int count = queries.size();
+            vectors = new float[count][];
+            genders = new Gender[count];
+            minAges = new int[count];
+            maxAges = new int[count];
+            lowBands = new int[count];
+            highBands = new int[count];
+            bestSimilarities = new double[count];
+            bestCustomerIds = new UUID[count];
+            sliceSimilarities = new double[count];
+            sliceCustomerIds = new UUID[count];
+            for (int q = 0; q < count; q++) {
+                FaceQuery query = queries.get(q);
+                vectors[q] = query.getVector().length == dimension ? query.getVector() : null;
+                genders[q] = query.getGender();
+                minAges[q] = query.getMinAge();
+                maxAges[q] = query.getMaxAge();
+                lowBands[q] = band(query.getMinAge());
+                highBands[q] = band(query.getMaxAge());
+            }
+            Arrays.fill(bestSimilarities, Double.NEGATIVE_INFINITY);
+            Arrays.fill(sliceSimilarities, Double.NEGATIVE_INFINITY);
+        }
+
+        /**
+         * 요청 q 에게 (gender, band) 버킷이 속하는 링
+         */
+        int ring(int q, Gender gender, int band) {
+            int distance = Math.max(0, Math.max(lowBands[q] - band, band - highBands[q]));
+            return gender == genders[q] ? distance : distance + 1;
+        }
+    }
+
+    /**
+     * 같은 성별·나이대 고객의 임베딩을 연속된 행렬로 보관한다. 행 i 의 고객 정보는 customerIds[i], ages[i] 에 있다.
+     */
+    private static class Bucket {
+        final int dimension;
+        final Map<UUID, Integer> rowByCustomerId = new HashMap<>();
+        int size;
+        float[] matrix = new float[0];
+        UUID[] customerIds = new UUID[0];
+        int[] ages = new int[0];
+
+        Bucket(int dimension) {
+            this.dimension = dimension;
+        }
+
+        void upsert(UUID customerId, int age, float[] embedding) {
+            Integer row = rowByCustomerId.get(customerId);
+            if (row == null) {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowByCustomerId.put(customerId, row);
+            }
+            customerIds[row] = customerId;
+            ages[row] = age;
+            System.arraycopy(embedding, 0, matrix, row * dimension, dimension);
+        }
+
+        /**
+         * 마지막 행을 삭제된 행 자리로 옮겨 행렬을 빈틈없이 유지한다.
+         */
+        void remove(UUID customerId) {
+            Integer row = rowByCustomerId.remove(customerId);
+            if (row == null) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                System.arraycopy(matrix, last * dimension, matrix, row * dimension, dimension);
+                customerIds[row] = customerIds[last];
+                ages[row] = ages[last];
+                rowByCustomerId.put(customerIds[row], row);
+            }
+            customerIds[last] = null;
+        }
+
+        void scan(Scan scan, boolean slice) {
+            for (int row = 0; row < size; row++) {
+                double similarity = VectorMath.dot(scan.query, 0, matrix, row * dimension, dimension);
+                if (similarity > scan.bestSimilarity) {
+                    scan.bestSimilarity = similarity;
+                    scan.bestCustomerId = customerIds[row];
+                }
+                if (slice && ages[row] >= scan.minAge && ages[row] <= scan.maxAge
+                        && similarity > scan.sliceSimilarity) {
+                    scan.sliceSimilarity = similarity;
+                    scan.sliceCustomerId = customerIds[row];
+                }
+            }
+        }
+
+        /**
+         * 행을 BLOCK_ROWS 개씩 묶어 활성 요청 전체와의 내적을 계산하여, 한 번 읽은 행을 여러 요청이 재사용하게 한다.
+         */
+        void scanBlocked(BatchScan scan, int[] active, int activeCount, boolean slice) {
+            for (int blockStart = 0; blockStart < size; blockStart += BLOCK_ROWS) {
+                int blockEnd = Math.min(size, blockStart + BLOCK_ROWS);
+                for (int i = 0; i < activeCount; i++) {
+                    int q = active[i];
+                    float[] vector = scan.vectors[q];
+                    for (int row = blockStart; row < blockEnd; row++) {
+                        double similarity = VectorMath.dot(vector, 0, matrix, row * dimension, dimension);
+                        if (similarity > scan.bestSimilarities[q]) {
+                            scan.bestSimilarities[q] = similarity;
+                            scan.bestCustomerIds[q] = customerIds[row];
+                        }
+                        if (slice && ages[row] >= scan.minAges[q] && ages[row] <= scan.maxAges[q]
+                                && similarity > scan.sliceSimilarities[q]) {
+                            scan.sliceSimilarities[q] = similarity;
+                            scan.sliceCustomerIds[q] = customerIds[row];
+                        }
+                    }
+                }
+            }
+        }
+
+        private void ensureCapacity(int required) {
+            int capacity = customerIds.length;
+            if (required <= capacity) {
+                return;
+            }
+            int newCapacity = Math.max(INITIAL_CAPACITY, Math.max(required, capacity + (capacity >> 1)));
+            matrix = Arrays.copyOf(matrix, newCapacity * dimension);
+            customerIds = Arrays.copyOf(customerIds, newCapacity);
+            ages = Arrays.copyOf(ages, newCapacity);
+        }
+    }
+}
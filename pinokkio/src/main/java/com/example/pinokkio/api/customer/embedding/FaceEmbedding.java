@@ -0,0 +1,37 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * L2 정규화된 얼굴 임베딩과 정규화 전 원래 크기(norm).
+ * 임베딩은 수신 시점에 한 번만 정규화되므로 검색 시 코사인 유사도는 내적 한 번으로 계산된다.
+ */
+@Getter
+@AllArgsConstructor
+public class FaceEmbedding {
+
+    private final float[] vector;
+    private final float norm;
+
+    /**
+     * 정규화되지 않은 임베딩을 정규화한다.
+     *
+     * @param raw 분석 서버가 반환한 원본 임베딩
+     * @return 정규화된 임베딩
+     */
+    public static FaceEmbedding normalize(float[] raw) {
+        double sumOfSquares = 0;
+        for (float value : raw) {
+            sumOfSquares += (double) value * value;
+        }
+        float norm = (float) Math.sqrt(sumOfSquares);
+        float[] vector = new float[raw.length];
+        VectorMath.normalizeInto(raw, vector, 0);
+        return new FaceEmbedding(vector, norm);
+    }
+
+    public int dimension() {
+        return vector.length;
+    }
+}
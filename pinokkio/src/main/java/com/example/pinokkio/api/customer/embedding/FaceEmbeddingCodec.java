@@ -0,0 +1,149 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 얼굴 임베딩의 저장 형식을 인코딩/디코딩한다.
+ * <pre>
+ * 버전 2 (현재 저장 형식)
+ * [0..1]  매직 바이트 'F' 'E'
+ * [2]     버전
+ * [3]     플래그 (bit 0: 정규화된 벡터)
+ * [4..7]  차원 수 (int32, little-endian)
+ * [8..11] 정규화 전 원래 크기 (float32, little-endian)
+ * [12..]  float32 little-endian * 차원 수
+ *
+ * 버전 1: 원래 크기 필드가 없고 [8..] 부터 정규화되지 않은 벡터가 저장된다.
+ * </pre>
+ * 전환 기간 동안 버전 1 과 기존 형식(따옴표로 감싼 JSON 배열의 UTF-8 바이트)도 함께 읽으며,
+ * 이 경우 읽는 시점에 정규화한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class FaceEmbeddingCodec {
+
+    public static final int HEADER_SIZE_V1 = 8;
+    public static final int HEADER_SIZE = 12;
+    // 저장된 차원 수의 상한. 손상된 데이터가 큰 배열을 할당하지 않도록 한다.
+    public static final int MAX_DIMENSION = 4096;
+
+    private static final byte MAGIC_0 = 'F';
+    private static final byte MAGIC_1 = 'E';
+    private static final byte VERSION_1 = 1;
+    private static final byte VERSION_2 = 2;
+    private static final byte FLAG_NORMALIZED = 0x01;
+
+    private final ObjectMapper objectMapper;
+
+    // false 이면 기존 JSON 형식으로 저장한다. (구버전 노드와 함께 운영하는 롤아웃 기간용)
+    @Value("${face.embedding.binary-write:true}")
+    private boolean binaryWrite;
+
+    /**
+     * 저장 형식 여부와 관계없이 임베딩을 정규화된 임베딩으로 변환한다.
+     * 정규화 플래그가 있는 형식은 그대로 사용하고, 그 외 형식만 정규화한다.
+     *
+     * @param data 저장된 얼굴 임베딩
+     * @return 정규화된 임베딩
+     */
+    public FaceEmbedding decode(byte[] data) {
+        if (isBinary(data)) {
+            return decodeBinary(data);
+        }
+        return FaceEmbedding.normalize(fromJson(new String(data, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 임베딩을 현재 설정된 저장 형식으로 인코딩한다.
+     *
+     * @param embedding 정규화된 임베딩
+     * @return 저장용 바이트 배열
+     */
+    public byte[] encode(FaceEmbedding embedding) {
+        return binaryWrite ? encodeBinary(embedding) : encodeJson(embedding.getVector());
+    }
+
+    /**
+     * 분석 서버가 반환한 JSON 배열 문자열을 벡터로 변환한다.
+     *
+     * @param json JSON 배열 문자열 (따옴표로 감싸져 있어도 된다)
+     * @return 임베딩 벡터
+     */
+    public float[] fromJson(String json) {
+        try {
+            return objectMapper.readValue(json.replaceAll("^\"|\"$", ""), float[].class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("임베딩 데이터 파싱 실패", e);
+        }
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length >= HEADER_SIZE_V1 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    /**
+     * @return 정규화 플래그가 있는 현재 저장 형식이면 true (백필 대상이 아님)
+     */
+    public static boolean isNormalized(byte[] data) {
+        return isBinary(data) && data[2] == VERSION_2 && (data[3] & FLAG_NORMALIZED) != 0;
+    }
+
+    public static byte[] encodeBinary(FaceEmbedding embedding) {
+        float[] vector = embedding.getVector();
+        ByteBuffer buffer = ByteBuffer
+                .allocate(HEADER_SIZE + vector.length * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC_0).put(MAGIC_1).put(VERSION_2).put(FLAG_NORMALIZED)
+                .putInt(vector.length)
+                .putFloat(embedding.getNorm());
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    public static FaceEmbedding decodeBinary(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        byte version = buffer.get(2);
+        if (version == VERSION_1) {
+            return FaceEmbedding.normalize(readVector(buffer, HEADER_SIZE_V1));
+        }
+        if (version != VERSION_2) {
+            throw new IllegalArgumentException("지원하지 않는 임베딩 형식 버전입니다. version=" + version);
+        }
+        if (data.length < HEADER_SIZE) {
+            throw new IllegalArgumentException("임베딩 데이터 길이가 올바르지 않습니다. length=" + data.length);
+        }
+        float[] vector = readVector(buffer, HEADER_SIZE);
+        if ((buffer.get(3) & FLAG_NORMALIZED) == 0) {
+            return FaceEmbedding.normalize(vector);
+        }
+        return new FaceEmbedding(vector, buffer.getFloat(8));
+    }
+
+    private static float[] readVector(ByteBuffer buffer, int headerSize) {
+        int dimension = buffer.getInt(4);
+        if (dimension <= 0 || dimension > MAX_DIMENSION
+                || buffer.capacity() < headerSize + dimension * Float.BYTES) {
+            throw new IllegalArgumentException("임베딩 데이터 길이가 올바르지 않습니다. dimension=" + dimension);
+        }
+        float[] vector = new float[dimension];
+        buffer.position(headerSize);
+        buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private byte[] encodeJson(float[] vector) {
+        try {
+            return ("\"" + objectMapper.writeValueAsString(vector) + "\"").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("임베딩 데이터 직렬화 실패", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+
+/**
+ * 분석 서버가 보낸 Base64 임베딩 문자열을 정규화된 임베딩으로 디코딩한다.
+ * <p>
+ * 같은 얼굴 분석 결과가 인식, 고객 등록 과정에서 여러 번 들어오므로 결과를 내용 해시 기준으로 캐시한다.
+ * 캐시 프록시가 적용되도록 별도 빈으로 분리하였다. (같은 클래스 내부 호출은 캐시를 거치지 않는다)
+ */
+@Component
+@RequiredArgsConstructor
+public class FaceEmbeddingDecoder {
+
+    private final FaceEmbeddingCodec faceEmbeddingCodec;
+
+    /**
+     * @param encoded Base64 로 인코딩된 임베딩
+     * @return 정규화된 임베딩
+     */
+    @Cacheable(cacheNames = CacheConfig.EMBEDDING_VECTORS, keyGenerator = "contentHashKeyGenerator")
+    public FaceEmbedding decode(String encoded) {
+        try {
+            return faceEmbeddingCodec.decode(Base64.getDecoder().decode(encoded));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("임베딩 데이터 디코딩 실패", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.api.customer.Customer;
+import com.example.pinokkio.api.customer.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 기존 형식(JSON, 정규화되지 않은 바이너리 버전 1)으로 저장된 고객 얼굴 임베딩을
+ * 정규화 플래그와 원래 크기를 담은 현재 바이너리 형식으로 재작성(백필)한다.
+ * face.embedding.migration.enabled=true 일 때 애플리케이션 기동 직후 한 번 실행되며,
+ * 배치 단위로 커밋하므로 중간에 중단되어도 다시 실행하면 남은 행만 변환된다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FaceEmbeddingMigration {
+
+    private final CustomerRepository customerRepository;
+    private final FaceEmbeddingCodec faceEmbeddingCodec;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${face.embedding.migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${face.embedding.migration.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        log.info("[FaceEmbeddingMigration] 얼굴 임베딩 정규화 형식 변환 시작. batchSize: {}", batchSize);
+
+        int page = 0;
+        int migrated = 0;
+        boolean hasNext = true;
+        while (hasNext) {
+            PageRequest pageRequest = PageRequest.of(page++, batchSize, Sort.by("id"));
+            BatchResult result = transactionTemplate.execute(status -> migrateBatch(pageRequest));
+            migrated += result.migrated;
+            hasNext = result.hasNext;
+        }
+
+        log.info("[FaceEmbeddingMigration] 얼굴 임베딩 정규화 형식 변환 완료. 변환된 고객 수: {}", migrated);
+    }
+
+    private BatchResult migrateBatch(PageRequest pageRequest) {
+        Slice<Customer> customers = customerRepository.findByFaceEmbeddingIsNotNull(pageRequest);
+        int migrated = 0;
+        for (Customer customer : customers) {
+            byte[] faceEmbedding = customer.getFaceEmbedding();
+            if (FaceEmbeddingCodec.isNormalized(faceEmbedding)) {
+                continue;
+            }
+            try {
+                customer.updateFaceEmbedding(FaceEmbeddingCodec.encodeBinary(faceEmbeddingCodec.decode(faceEmbedding)));
+                migrated++;
+            } catch (IllegalArgumentException e) {
+                log.error("[FaceEmbeddingMigration] 얼굴 임베딩 변환 실패. customerId = {}", customer.getId(), e);
+            }
+        }
+        return new BatchResult(migrated, customers.hasNext());
+    }
+
+    // 배치 하나의 변환 결과를 담는 내부 클래스
+    private static class BatchResult {
+        final int migrated;
+        final boolean hasNext;
+
+        BatchResult(int migrated, boolean hasNext) {
+            this.migrated = migrated;
+            this.hasNext = hasNext;
+        }
+    }
+}
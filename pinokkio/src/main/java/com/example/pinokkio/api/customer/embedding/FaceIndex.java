@@ -0,0 +1,80 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 한 포스의 고객 얼굴 임베딩 검색 엔진.
+ * 구현체는 정확한 탐색(ExactFaceIndex), 근사 최근접 이웃 탐색(HnswFaceIndex),
+ * 양자화 후 재정렬 탐색(QuantizedFaceIndex)이 있다.
+ * 모든 임베딩은 L2 정규화된 상태로 전달되며(FaceEmbedding), 구현체는 다시 정규화하지 않는다.
+ */
+public interface FaceIndex {
+
+    /**
+     * 고객의 얼굴 임베딩을 추가하거나 기존 항목을 교체한다.
+     *
+     * @param customerId 고객 식별자
+     * @param gender     고객 성별
+     * @param age        고객 나이
+     * @param embedding  정규화된 얼굴 임베딩
+     */
+    void upsert(UUID customerId, Gender gender, int age, float[] embedding);
+
+    /**
+     * 고객을 검색 대상에서 제외한다.
+     *
+     * @param customerId 고객 식별자
+     */
+    void remove(UUID customerId);
+
+    /**
+     * 입력 임베딩과 가장 유사한 고객을 찾는다.
+     * 성별/나이 범위에 속하는 고객 중 임계값 이상인 고객을 우선하고,
+     * 없으면 전체 고객 중 임계값 이상인 가장 유사한 고객을 반환한다.
+     *
+     * @param query     정규화된 입력 임베딩
+     * @param gender    추정 성별
+     * @param minAge    나이 범위 하한
+     * @param maxAge    나이 범위 상한
+     * @param threshold 매칭으로 인정할 최소 유사도
+     * @return 매칭 결과, 없으면 null
+     */
+    FaceMatch findBest(float[] query, Gender gender, int minAge, int maxAge, double threshold);
+
+    /**
+     * 같은 포스에 대한 여러 검색 요청을 한 번에 처리한다. 각 결과는 findBest 와 같은 기준으로 판정된다.
+     * 기본 구현은 요청마다 findBest 를 호출한다.
+     *
+     * @param queries   검색 요청 목록
+     * @param threshold 매칭으로 인정할 최소 유사도
+     * @return 요청 순서와 같은 순서의 매칭 결과 목록 (매칭이 없으면 null 원소)
+     */
+    default List<FaceMatch> findBestBatch(List<FaceQuery> queries, double threshold) {
+        List<FaceMatch> matches = new ArrayList<>(queries.size());
+        for (FaceQuery query : queries) {
+            matches.add(findBest(query.getVector(), query.getGender(), query.getMinAge(), query.getMaxAge(), threshold));
+        }
+        return matches;
+    }
+
+    /**
+     * @return 검색 대상 고객 수
+     */
+    int size();
+
+    /**
+     * @return 임베딩과 고객 속성 보관에 쓰이는 대략적인 힙 메모리 바이트 수
+     */
+    long heapBytes();
+
+    /**
+     * @return 임베딩 보관에 쓰이는 힙 외부(direct) 메모리 바이트 수
+     */
+    default long offHeapBytes() {
+        return 0;
+    }
+}
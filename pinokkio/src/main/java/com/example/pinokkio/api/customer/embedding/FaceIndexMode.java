@@ -0,0 +1,13 @@
+package com.example.pinokkio.api.customer.embedding;
+
+/**
+ * 포스별 얼굴 검색 엔진 종류
+ */
+public enum FaceIndexMode {
+    // 성별·나이대 버킷 정확 탐색 (정확한 결과, 비교 기준)
+    EXACT,
+    // HNSW 그래프 기반 근사 탐색
+    HNSW,
+    // int8 양자화 코드로 후보를 고른 뒤 원본 벡터로 재정렬
+    QUANTIZED
+}
@@ -0,0 +1,17 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 얼굴 임베딩 검색 결과 (매칭된 고객 식별자와 코사인 유사도)
+ */
+@Getter
+@AllArgsConstructor
+public class FaceMatch {
+
+    private final UUID customerId;
+    private final double similarity;
+}
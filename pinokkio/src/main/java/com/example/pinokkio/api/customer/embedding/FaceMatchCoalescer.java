@@ -0,0 +1,145 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 같은 포스로 짧은 시간 안에 들어온 얼굴 검색 요청을 모아 한 번의 배치 검색으로 처리한다.
+ * <p>
+ * 포스별 첫 요청이 도착하면 window 뒤에 배치를 실행하도록 예약하고, 그 사이 들어온 요청은 같은 배치에 합류한다.
+ * 배치가 maxBatchSize 에 도달하면 기다리지 않고 바로 실행한다.
+ */
+@Component
+@Slf4j
+public class FaceMatchCoalescer {
+
+    private final CustomerEmbeddingIndex customerEmbeddingIndex;
+    private final Map<UUID, PendingBatch> pendingByPos = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${face.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${face.batch.window:3ms}")
+    private Duration window;
+
+    @Value("${face.batch.max-size:32}")
+    private int maxBatchSize;
+
+    public FaceMatchCoalescer(CustomerEmbeddingIndex customerEmbeddingIndex) {
+        this.customerEmbeddingIndex = customerEmbeddingIndex;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "face-batch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 검색 요청을 포스의 다음 배치에 추가한다.
+     *
+     * @param posId     포스 식별자
+     * @param query     검색 요청
+     * @param threshold 매칭으로 인정할 최소 유사도
+     * @return 매칭 결과 (매칭이 없으면 null 로 완료)
+     */
+    public CompletableFuture<FaceMatch> submit(UUID posId, FaceQuery query, double threshold) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(customerEmbeddingIndex.findBest(posId, query, threshold));
+        }
+
+        PendingRequest request = new PendingRequest(query);
+        PendingBatch[] full = new PendingBatch[1];
+        pendingByPos.compute(posId, (id, batch) -> {
+            if (batch == null || batch.threshold != threshold) {
+                if (batch != null) {
+                    full[0] = batch;
+                }
+                batch = new PendingBatch(threshold);
+                PendingBatch scheduled = batch;
+                scheduler.schedule(() -> flush(posId, scheduled), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.requests.add(request);
+            if (batch.requests.size() >= maxBatchSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+
+        if (full[0] != null) {
+            PendingBatch batch = full[0];
+            scheduler.execute(() -> run(posId, batch));
+        }
+        return request.future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush(UUID posId, PendingBatch batch) {
+        // 이미 크기 초과로 실행된 배치는 맵에서 빠져 있으므로 다시 실행하지 않는다.
+        if (pendingByPos.remove(posId, batch)) {
+            run(posId, batch);
+        }
+    }
+
+    private void run(UUID posId, PendingBatch batch) {
+        List<PendingRequest> requests = batch.requests;
+        try {
+            List<FaceQuery> queries = new ArrayList<>(requests.size());
+            for (PendingRequest request : requests) {
+                queries.add(request.query);
+            }
+            List<FaceMatch> matches = customerEmbeddingIndex.findBestBatch(posId, queries, batch.threshold);
+            for (int i = 0; i < requests.size(); i++) {
+                requests.get(i).future.complete(matches.get(i));
+            }
+            log.debug("[FaceMatchCoalescer] posId: {} 배치 검색 완료. 요청 수: {}", posId, requests.size());
+        } catch (Exception e) {
+            log.error("[FaceMatchCoalescer] posId: {} 배치 검색 실패", posId, e);
+            for (PendingRequest request : requests) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    // 포스별로 모이고 있는 배치
+    private static class PendingBatch {
+        final double threshold;
+        final List<PendingRequest> requests = new ArrayList<>();
+
+        PendingBatch(double threshold) {
+            this.threshold = threshold;
+        }
+    }
+
+    // 배치 결과를 기다리는 검색 요청
+    private static class PendingRequest {
+        final FaceQuery query;
+        final CompletableFuture<FaceMatch> future = new CompletableFuture<>();
+
+        PendingRequest(FaceQuery query) {
+            this.query = query;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 얼굴 검색 요청 한 건 (정규화된 입력 임베딩과 우선 탐색할 성별·나이 범위)
+ */
+@Getter
+@AllArgsConstructor
+public class FaceQuery {
+
+    private final float[] vector;
+    private final Gender gender;
+    private final int minAge;
+    private final int maxAge;
+}
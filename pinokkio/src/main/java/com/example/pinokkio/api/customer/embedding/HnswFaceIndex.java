@@ -0,0 +1,478 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HNSW(Hierarchical Navigable Small World) 그래프 기반 근사 최근접 이웃 얼굴 검색 인덱스.
+ * <p>
+ * 고객 등록 시 그래프에 점진적으로 삽입되며, 삭제나 교체는 노드를 삭제 표시(soft delete)만 하고
+ * 탐색 경로로는 계속 사용한다. 삭제 표시된 노드가 전체의 20% 를 넘으면 살아 있는 노드만으로 그래프를 다시 만들어,
+ * 재등록이 반복되어도 그래프가 계속 커지거나 삭제된 노드가 검색 후보를 차지하지 않게 한다.
+ * efSearch 가 클수록 재현율이 높아지고 검색 지연도 늘어난다.
+ */
+public class HnswFaceIndex implements FaceIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ID_BYTES = Long.BYTES * 2;
+    private static final double MAX_DELETED_RATIO = 0.2;
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> nodeByCustomerId = new HashMap<>();
+
+    private int dimension;
+    private int nodeCount;
+    private int liveCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private float[] vectors = new float[0];
+    private UUID[] customerIds = new UUID[0];
+    private Gender[] genders = new Gender[0];
+    private int[] ages = new int[0];
+    private boolean[] deleted = new boolean[0];
+    // links[node][level] = [이웃 수, 이웃1, 이웃2, ...]
+    private int[][][] links = new int[0][][];
+
+    /**
+     * @param m              노드당 이웃 수 (레벨 0 은 2배)
+     * @param efConstruction 삽입 시 후보 탐색 폭
+     * @param efSearch       검색 시 후보 탐색 폭 (재현율/지연 조절값)
+     */
+    public HnswFaceIndex(int m, int efConstruction, int efSearch) {
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long heapBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) vectors.length * Float.BYTES
+                    + (long) customerIds.length * ID_BYTES
+                    + (long) ages.length * Integer.BYTES
+                    + deleted.length;
+            for (int node = 0; node < nodeCount; node++) {
+                for (int[] neighbors : links[node]) {
+                    bytes += (long) neighbors.length * Integer.BYTES;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(UUID customerId, Gender gender, int age, float[] embedding) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = embedding.length;
+            }
+            if (embedding.length != dimension) {
+                throw new IllegalArgumentException(
+                        "임베딩 차원이 일치하지 않습니다. expected=" + dimension + ", actual=" + embedding.length);
+            }
+
+            // 기존 노드는 삭제 표시만 하고 새 노드로 교체한다.
+            markDeleted(nodeByCustomerId.get(customerId));
+            ensureCapacity(nodeCount + 1);
+            addNode(customerId, gender, age, embedding, 0);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(UUID customerId) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(nodeByCustomerId.remove(customerId));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public FaceMatch findBest(float[] query, Gender gender, int minAge, int maxAge, double threshold) {
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0 || query.length != dimension) {
+                return null;
+            }
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedySearch(query, current, level);
+            }
+            ScoredHeap candidates = searchLayer(query, current, efSearch, 0);
+
+            int bestNode = -1;
+            double bestSimilarity = Double.NEGATIVE_INFINITY;
+            int bestSliceNode = -1;
+            double bestSliceSimilarity = Double.NEGATIVE_INFINITY;
+
+            while (candidates.size() > 0) {
+                double similarity = candidates.peekScore();
+                int node = candidates.pop();
+                if (deleted[node]) {
+                    continue;
+                }
+                if (similarity > bestSimilarity) {
+                    bestSimilarity = similarity;
+                    bestNode = node;
+                }
+                if (genders[node] == gender && ages[node] >= minAge && ages[node] <= maxAge
+                        && similarity > bestSliceSimilarity) {
+                    bestSliceSimilarity = similarity;
+                    bestSliceNode = node;
+                }
+            }
+
+            if (bestSliceNode >= 0 && bestSliceSimilarity >= threshold) {
+                return new FaceMatch(customerIds[bestSliceNode], bestSliceSimilarity);
+            }
+            if (bestNode >= 0 && bestSimilarity >= threshold) {
+                return new FaceMatch(customerIds[bestNode], bestSimilarity);
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 삭제 표시된 노드를 포함한 그래프의 노드 수
+     */
+    int graphSize() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addNode(UUID customerId, Gender gender, int age, float[] source, int offset) {
+        int node = nodeCount++;
+        System.arraycopy(source, offset, vectors, node * dimension, dimension);
+        customerIds[node] = customerId;
+        genders[node] = gender;
+        ages[node] = age;
+        nodeByCustomerId.put(customerId, node);
+        liveCount++;
+        insert(node);
+    }
+
+    /**
+     * 삭제 표시된 노드가 많아지면 살아 있는 노드만 다시 삽입하여 그래프를 새로 만든다.
+     */
+    private void compactIfNeeded() {
+        if (nodeCount - liveCount <= MAX_DELETED_RATIO * nodeCount) {
+            return;
+        }
+        float[] oldVectors = vectors;
+        UUID[] oldCustomerIds = customerIds;
+        Gender[] oldGenders = genders;
+        int[] oldAges = ages;
+        boolean[] oldDeleted = deleted;
+        int oldCount = nodeCount;
+
+        vectors = new float[0];
+        customerIds = new UUID[0];
+        genders = new Gender[0];
+        ages = new int[0];
+        deleted = new boolean[0];
+        links = new int[0][][];
+        nodeByCustomerId.clear();
+        nodeCount = 0;
+        liveCount = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+
+        int live = 0;
+        for (int old = 0; old < oldCount; old++) {
+            if (!oldDeleted[old]) {
+                live++;
+            }
+        }
+        ensureCapacity(live);
+        for (int old = 0; old < oldCount; old++) {
+            if (!oldDeleted[old]) {
+                addNode(oldCustomerIds[old], oldGenders[old], oldAges[old], oldVectors, old * dimension);
+            }
+        }
+    }
+
+    private void markDeleted(Integer node) {
+        if (node != null && !deleted[node]) {
+            deleted[node] = true;
+            liveCount--;
+        }
+    }
+
+    private void insert(int node) {
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxNeighbors(l) + 1];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] vector = Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedySearch(vector, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            int[] nearest = searchLayer(vector, current, efConstruction, l).drainDescending();
+            current = nearest[0];
+            for (int i = 0; i < Math.min(m, nearest.length); i++) {
+                connect(node, nearest[i], l);
+                connect(nearest[i], node, l);
+            }
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * from 의 이웃 목록에 to 를 추가한다. 목록이 가득 찼으면 가장 유사도가 낮은 이웃과 비교해 교체한다.
+     */
+    private void connect(int from, int to, int level) {
+        int[] neighbors = links[from][level];
+        int count = neighbors[0];
+        if (count < neighbors.length - 1) {
+            neighbors[++count] = to;
+            neighbors[0] = count;
+            return;
+        }
+
+        int worstIndex = -1;
+        double worstSimilarity = similarity(from, to);
+        for (int i = 1; i <= count; i++) {
+            double similarity = similarity(from, neighbors[i]);
+            if (similarity < worstSimilarity) {
+                worstSimilarity = similarity;
+                worstIndex = i;
+            }
+        }
+        if (worstIndex > 0) {
+            neighbors[worstIndex] = to;
+        }
+    }
+
+    private int greedySearch(float[] query, int start, int level) {
+        int current = start;
+        double currentSimilarity = similarity(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                double similarity = similarity(query, neighbors[i]);
+                if (similarity > currentSimilarity) {
+                    currentSimilarity = similarity;
+                    current = neighbors[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 한 레벨에서 query 와 가장 유사한 노드를 최대 ef 개 찾는다.
+     *
+     * @return 유사도가 낮은 노드부터 꺼내지는 힙
+     */
+    private ScoredHeap searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodeCount);
+        ScoredHeap candidates = new ScoredHeap(ef * 2, true);
+        ScoredHeap results = new ScoredHeap(ef + 1, false);
+
+        double startSimilarity = similarity(query, start);
+        visited.set(start);
+        candidates.push(start, startSimilarity);
+        results.push(start, startSimilarity);
+
+        while (candidates.size() > 0) {
+            double candidateSimilarity = candidates.peekScore();
+            int candidate = candidates.pop();
+            if (results.size() >= ef && candidateSimilarity < results.peekScore()) {
+                break;
+            }
+
+            int[] neighbors = links[candidate][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+
+                double similarity = similarity(query, neighbor);
+                if (results.size() < ef || similarity > results.peekScore()) {
+                    candidates.push(neighbor, similarity);
+                    results.push(neighbor, similarity);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private double similarity(float[] query, int node) {
+        return VectorMath.dot(query, 0, vectors, node * dimension, dimension);
+    }
+
+    private double similarity(int a, int b) {
+        return VectorMath.dot(vectors, a * dimension, vectors, b * dimension, dimension);
+    }
+
+    private int maxNeighbors(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = customerIds.length;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(INITIAL_CAPACITY, Math.max(required, capacity + (capacity >> 1)));
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        customerIds = Arrays.copyOf(customerIds, newCapacity);
+        genders = Arrays.copyOf(genders, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        deleted = Arrays.copyOf(deleted, newCapacity);
+        links = Arrays.copyOf(links, newCapacity);
+    }
+
+    /**
+     * (노드, 유사도) 쌍을 담는 이진 힙. max 가 true 이면 유사도가 높은 노드부터 꺼낸다.
+     */
+    private static class ScoredHeap {
+        private final boolean max;
+        private int[] nodes;
+        private double[] scores;
+        private int size;
+
+        ScoredHeap(int initialCapacity, boolean max) {
+            this.max = max;
+            this.nodes = new int[Math.max(4, initialCapacity)];
+            this.scores = new double[nodes.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        double peekScore() {
+            return scores[0];
+        }
+
+        void push(int node, double score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(score, scores[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            double lastScore = scores[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(scores[child + 1], scores[child])) {
+                    child++;
+                }
+                if (!before(scores[child], lastScore)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            scores[i] = lastScore;
+            return top;
+        }
+
+        /**
+         * 힙을 비우며 유사도 내림차순으로 정렬된 노드 배열을 반환한다. (최소 힙 전용)
+         */
+        int[] drainDescending() {
+            int[] sorted = new int[size];
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                sorted[i] = pop();
+            }
+            return sorted;
+        }
+
+        private boolean before(double a, double b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 키오스크별 최근 얼굴 인식 결과 캐시.
+ * <p>
+ * 한 사람이 키오스크 앞에 서 있는 동안 프레임마다 임베딩이 조금씩 달라지므로, 임베딩 자체가 아니라
+ * 랜덤 초평면 기반 LSH 서명(64비트)으로 가까운 얼굴을 찾는다. 서명의 해밍 거리가 maxHamming 이하인 항목만
+ * 실제 코사인 유사도로 확인하여 minSimilarity 이상이면 이전 매칭 결과를 그대로 돌려준다.
+ * 항목은 window 동안만 유효하며, 키오스크 리셋/주문 완료/고객 등록 시 비워진다.
+ */
+@Component
+@Slf4j
+public class KioskRecognitionCache {
+
+    private static final int SIGNATURE_BITS = Long.SIZE;
+    private static final int MAX_ENTRIES_PER_KIOSK = 8;
+    private static final long HYPERPLANE_SEED = 0x5eed_face_1234L;
+
+    private final Map<UUID, Deque<Entry>> entriesByKiosk = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private volatile float[] hyperplanes;
+    private volatile int dimension;
+
+    @Value("${face.recognition-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${face.recognition-cache.window:10s}")
+    private Duration window;
+
+    @Value("${face.recognition-cache.max-hamming:12}")
+    private int maxHamming;
+
+    @Value("${face.recognition-cache.min-similarity:0.9}")
+    private double minSimilarity;
+
+    public KioskRecognitionCache(MeterRegistry meterRegistry) {
+        this.hitCounter = meterRegistry.counter("face.recognition.cache", "result", "hit");
+        this.missCounter = meterRegistry.counter("face.recognition.cache", "result", "miss");
+    }
+
+    /**
+     * 같은 키오스크에서 최근에 인식한 거의 같은 얼굴이 있으면 그 결과를 반환한다.
+     *
+     * @param kioskId 키오스크 식별자
+     * @param vector  정규화된 입력 임베딩
+     * @return 이전 인식 결과, 없으면 null
+     */
+    public Entry lookup(UUID kioskId, float[] vector) {
+        if (!enabled) {
+            return null;
+        }
+        Deque<Entry> entries = entriesByKiosk.get(kioskId);
+        if (entries == null || vector.length != dimension) {
+            missCounter.increment();
+            return null;
+        }
+
+        long signature = signature(vector);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.expiresAt < now) {
+                    iterator.remove();
+                    continue;
+                }
+                if (Long.bitCount(signature ^ entry.signature) <= maxHamming
+                        && VectorMath.dot(vector, 0, entry.vector, 0, vector.length) >= minSimilarity) {
+                    hitCounter.increment();
+                    return entry;
+                }
+            }
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 키오스크의 인식 결과를 기록한다.
+     *
+     * @param kioskId    키오스크 식별자
+     * @param vector     정규화된 입력 임베딩
+     * @param customerId 매칭된 고객 식별자, 신규 고객이면 null
+     */
+    public void put(UUID kioskId, float[] vector, UUID customerId) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(signature(vector), vector, customerId, System.currentTimeMillis() + window.toMillis());
+        Deque<Entry> entries = entriesByKiosk.computeIfAbsent(kioskId, id -> new ArrayDeque<>());
+        synchronized (entries) {
+            entries.addFirst(entry);
+            while (entries.size() > MAX_ENTRIES_PER_KIOSK) {
+                entries.removeLast();
+            }
+        }
+    }
+
+    /**
+     * 키오스크의 인식 결과를 모두 비운다. (키오스크 리셋, 주문 완료, 고객 등록 시)
+     *
+     * @param kioskId 키오스크 식별자
+     */
+    public void invalidate(UUID kioskId) {
+        if (entriesByKiosk.remove(kioskId) != null) {
+            log.debug("[KioskRecognitionCache] kioskId: {} 인식 캐시 초기화", kioskId);
+        }
+    }
+
+    private long signature(float[] vector) {
+        float[] planes = hyperplanesFor(vector.length);
+        long signature = 0;
+        for (int bit = 0; bit < SIGNATURE_BITS; bit++) {
+            if (VectorMath.dot(planes, bit * vector.length, vector, 0, vector.length) >= 0) {
+                signature |= 1L << bit;
+            }
+        }
+        return signature;
+    }
+
+    private float[] hyperplanesFor(int length) {
+        float[] planes = hyperplanes;
+        if (planes != null && dimension == length) {
+            return planes;
+        }
+        synchronized (this) {
+            if (hyperplanes == null || dimension != length) {
+                Random random = new Random(HYPERPLANE_SEED);
+                float[] generated = new float[SIGNATURE_BITS * length];
+                for (int i = 0; i < generated.length; i++) {
+                    generated[i] = (float) random.nextGaussian();
+                }
+                hyperplanes = generated;
+                dimension = length;
+                entriesByKiosk.clear();
+            }
+            return hyperplanes;
+        }
+    }
+
+    /**
+     * 키오스크에서 인식한 얼굴 한 건
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final long signature;
+        private final float[] vector;
+        // 매칭된 고객 식별자, 신규 고객이면 null
+        private final UUID customerId;
+        private final long expiresAt;
+    }
+}
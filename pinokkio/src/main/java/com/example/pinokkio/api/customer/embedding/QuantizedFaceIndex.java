@@ -0,0 +1,336 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * int8 스칼라 양자화 코드로 후보를 고른 뒤 원본 벡터로 재정렬하는 얼굴 검색 인덱스.
+ * <p>
+ * 힙에는 행마다 차원 수만큼의 int8 코드와 배율(scale) 하나만 두고, 재정렬용 float32 원본 벡터는
+ * 힙 외부(direct buffer)에 보관한다. 검색은 코드 간 정수 내적으로 전체 고객과 성별·나이 범위 고객의
+ * 상위 rerankSize 명씩을 고르고, 이 후보만 원본 벡터로 다시 계산해 ExactFaceIndex 와 같은 기준으로 판정한다.
+ * <p>
+ * recallSampleRate 비율의 검색은 원본 벡터 전체 탐색 결과와 비교하여 재현율을 기록한다.
+ */
+public class QuantizedFaceIndex implements FaceIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ID_BYTES = Long.BYTES * 2;
+    private static final float CODE_MAX = 127f;
+
+    private final int rerankSize;
+    private final double recallSampleRate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> rowByCustomerId = new HashMap<>();
+    private final AtomicLong recallSamples = new AtomicLong();
+    private final AtomicLong recallMatches = new AtomicLong();
+
+    private int dimension;
+    private int size;
+    private byte[] codes = new byte[0];
+    private float[] scales = new float[0];
+    private UUID[] customerIds = new UUID[0];
+    private Gender[] genders = new Gender[0];
+    private int[] ages = new int[0];
+    private FloatBuffer vectors = FloatBuffer.allocate(0);
+
+    /**
+     * @param rerankSize       원본 벡터로 재정렬할 후보 수 (전체, 성별·나이 범위 각각)
+     * @param recallSampleRate 전체 탐색과 비교하여 재현율을 기록할 검색 비율 (0 ~ 1)
+     */
+    public QuantizedFaceIndex(int rerankSize, double recallSampleRate) {
+        this.rerankSize = Math.max(1, rerankSize);
+        this.recallSampleRate = recallSampleRate;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long heapBytes() {
+        lock.readLock().lock();
+        try {
+            return codes.length
+                    + (long) scales.length * Float.BYTES
+                    + (long) customerIds.length * ID_BYTES
+                    + (long) ages.length * Integer.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) vectors.capacity() * Float.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 표본 검색 수
+     */
+    public long getRecallSamples() {
+        return recallSamples.get();
+    }
+
+    /**
+     * @return 표본 검색 중 전체 탐색과 같은 고객(또는 둘 다 미매칭)을 반환한 수
+     */
+    public long getRecallMatches() {
+        return recallMatches.get();
+    }
+
+    @Override
+    public void upsert(UUID customerId, Gender gender, int age, float[] embedding) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = embedding.length;
+            }
+            if (embedding.length != dimension) {
+                throw new IllegalArgumentException(
+                        "임베딩 차원이 일치하지 않습니다. expected=" + dimension + ", actual=" + embedding.length);
+            }
+
+            Integer row = rowByCustomerId.get(customerId);
+            if (row == null) {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowByCustomerId.put(customerId, row);
+            }
+
+            customerIds[row] = customerId;
+            genders[row] = gender;
+            ages[row] = age;
+            scales[row] = quantizeInto(embedding, codes, row * dimension);
+            vectors.put(row * dimension, embedding);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 마지막 행을 삭제된 행 자리로 옮겨 빈틈없이 유지한다.
+     */
+    @Override
+    public void remove(UUID customerId) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByCustomerId.remove(customerId);
+            if (row == null) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                System.arraycopy(codes, last * dimension, codes, row * dimension, dimension);
+                vectors.put(row * dimension, vectors, last * dimension, dimension);
+                scales[row] = scales[last];
+                customerIds[row] = customerIds[last];
+                genders[row] = genders[last];
+                ages[row] = ages[last];
+                rowByCustomerId.put(customerIds[row], row);
+            }
+            customerIds[last] = null;
+            genders[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public FaceMatch findBest(float[] query, Gender gender, int minAge, int maxAge, double threshold) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return null;
+            }
+
+            // 1단계: 양자화 코드로 후보 선정
+            byte[] queryCodes = new byte[dimension];
+            float queryScale = quantizeInto(query, queryCodes, 0);
+            Candidates all = new Candidates(rerankSize);
+            Candidates slice = new Candidates(rerankSize);
+            for (int row = 0; row < size; row++) {
+                float approximate = queryScale * scales[row]
+                        * VectorMath.dot(queryCodes, 0, codes, row * dimension, dimension);
+                all.offer(row, approximate);
+                if (inSlice(row, gender, minAge, maxAge)) {
+                    slice.offer(row, approximate);
+                }
+            }
+
+            // 2단계: 후보만 원본 벡터로 재정렬
+            float[] row = new float[dimension];
+            FaceMatch match = select(query, row, slice, all, threshold);
+
+            if (recallSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < recallSampleRate) {
+                FaceMatch exact = exactSearch(query, row, gender, minAge, maxAge, threshold);
+                recallSamples.incrementAndGet();
+                if (Objects.equals(customerIdOf(exact), customerIdOf(match))) {
+                    recallMatches.incrementAndGet();
+                }
+            }
+            return match;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FaceMatch select(float[] query, float[] row, Candidates slice, Candidates all, double threshold) {
+        int bestSliceRow = -1;
+        double bestSliceSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < slice.count; i++) {
+            double similarity = exactSimilarity(query, row, slice.rows[i]);
+            if (similarity > bestSliceSimilarity) {
+                bestSliceSimilarity = similarity;
+                bestSliceRow = slice.rows[i];
+            }
+        }
+        if (bestSliceRow >= 0 && bestSliceSimilarity >= threshold) {
+            return new FaceMatch(customerIds[bestSliceRow], bestSliceSimilarity);
+        }
+
+        int bestRow = -1;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < all.count; i++) {
+            double similarity = exactSimilarity(query, row, all.rows[i]);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                bestRow = all.rows[i];
+            }
+        }
+        if (bestRow >= 0 && bestSimilarity >= threshold) {
+            return new FaceMatch(customerIds[bestRow], bestSimilarity);
+        }
+        return null;
+    }
+
+    /**
+     * 재현율 측정용 원본 벡터 전체 탐색
+     */
+    private FaceMatch exactSearch(float[] query, float[] row, Gender gender, int minAge, int maxAge, double threshold) {
+        int bestRow = -1;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        int bestSliceRow = -1;
+        double bestSliceSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            double similarity = exactSimilarity(query, row, i);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                bestRow = i;
+            }
+            if (inSlice(i, gender, minAge, maxAge) && similarity > bestSliceSimilarity) {
+                bestSliceSimilarity = similarity;
+                bestSliceRow = i;
+            }
+        }
+        if (bestSliceRow >= 0 && bestSliceSimilarity >= threshold) {
+            return new FaceMatch(customerIds[bestSliceRow], bestSliceSimilarity);
+        }
+        if (bestRow >= 0 && bestSimilarity >= threshold) {
+            return new FaceMatch(customerIds[bestRow], bestSimilarity);
+        }
+        return null;
+    }
+
+    private double exactSimilarity(float[] query, float[] buffer, int row) {
+        vectors.get(row * dimension, buffer);
+        return VectorMath.dot(query, 0, buffer, 0, dimension);
+    }
+
+    private boolean inSlice(int row, Gender gender, int minAge, int maxAge) {
+        return genders[row] == gender && ages[row] >= minAge && ages[row] <= maxAge;
+    }
+
+    private static UUID customerIdOf(FaceMatch match) {
+        return match == null ? null : match.getCustomerId();
+    }
+
+    /**
+     * 벡터를 최대 절댓값 기준으로 [-127, 127] 범위의 int8 코드로 변환한다.
+     *
+     * @return 코드를 원래 값으로 되돌리는 배율
+     */
+    private static float quantizeInto(float[] vector, byte[] target, int offset) {
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        float scale = maxAbs > 0 ? maxAbs / CODE_MAX : 1f;
+        for (int i = 0; i < vector.length; i++) {
+            target[offset + i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = customerIds.length;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(INITIAL_CAPACITY, Math.max(required, capacity + (capacity >> 1)));
+        codes = Arrays.copyOf(codes, newCapacity * dimension);
+        scales = Arrays.copyOf(scales, newCapacity);
+        customerIds = Arrays.copyOf(customerIds, newCapacity);
+        genders = Arrays.copyOf(genders, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+
+        FloatBuffer grown = ByteBuffer
+                .allocateDirect(newCapacity * dimension * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        grown.put(0, vectors, 0, size * dimension);
+        vectors = grown;
+    }
+
+    /**
+     * 근사 유사도 상위 행을 유사도 내림차순으로 유지하는 고정 크기 후보 목록
+     */
+    private static class Candidates {
+        final int[] rows;
+        final float[] scores;
+        int count;
+
+        Candidates(int capacity) {
+            this.rows = new int[capacity];
+            this.scores = new float[capacity];
+        }
+
+        void offer(int row, float score) {
+            if (count == rows.length && score <= scores[count - 1]) {
+                return;
+            }
+            int i = count == rows.length ? count - 1 : count++;
+            while (i > 0 && scores[i - 1] < score) {
+                rows[i] = rows[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            rows[i] = row;
+            scores[i] = score;
+        }
+    }
+}
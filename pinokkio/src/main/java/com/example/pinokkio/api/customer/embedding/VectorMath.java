@@ -0,0 +1,141 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 얼굴 임베딩 검색에 쓰이는 벡터 연산
+ * <p>
+ * 내적은 모든 키오스크 얼굴 조회의 가장 안쪽 루프이므로 힙 할당 없이 계산한다.
+ * JVM 이 jdk.incubator.vector 모듈과 함께 실행되면(--add-modules jdk.incubator.vector) SIMD 커널을,
+ * 그렇지 않거나 SIMD 가 꺼져 있으면 스칼라 커널을 사용한다.
+ */
+@Slf4j
+public final class VectorMath {
+
+    private static final boolean SIMD_AVAILABLE = SimdHolder.AVAILABLE;
+
+    private static volatile boolean simdEnabled = SIMD_AVAILABLE;
+
+    private VectorMath() {
+    }
+
+    /**
+     * SIMD 커널 사용 여부를 설정한다. 모듈이 없는 환경에서는 true 를 주어도 스칼라 커널을 사용한다.
+     *
+     * @param enabled SIMD 커널 사용 여부
+     * @return 실제로 SIMD 커널이 사용되는지 여부
+     */
+    public static boolean useSimd(boolean enabled) {
+        simdEnabled = enabled && SIMD_AVAILABLE;
+        return simdEnabled;
+    }
+
+    public static boolean isSimdEnabled() {
+        return simdEnabled;
+    }
+
+    /**
+     * source 를 L2 정규화하여 target[offset..] 에 기록한다. 영벡터는 그대로 복사한다.
+     */
+    public static void normalizeInto(float[] source, float[] target, int offset) {
+        double sumOfSquares = 0;
+        for (float value : source) {
+            sumOfSquares += (double) value * value;
+        }
+        double norm = Math.sqrt(sumOfSquares);
+        float scale = norm > 0 ? (float) (1.0 / norm) : 1.0f;
+        for (int i = 0; i < source.length; i++) {
+            target[offset + i] = source[i] * scale;
+        }
+    }
+
+    /**
+     * a[aOffset..] 와 b[bOffset..] 의 length 길이 내적을 계산한다.
+     * 두 벡터가 미리 정규화되어 있으면 코사인 유사도와 같다.
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        if (simdEnabled) {
+            return SimdDot.dot(a, aOffset, b, bOffset, length);
+        }
+        return scalarDot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * int8 로 양자화된 a[aOffset..] 와 b[bOffset..] 의 length 길이 정수 내적을 계산한다.
+     */
+    public static int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * 스칼라 커널. 누산기를 4개로 나누어 덧셈 의존성을 줄인다.
+     */
+    static float scalarDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * jdk.incubator.vector 모듈이 로드 가능한지 확인한다.
+     * 모듈이 없으면 SimdDot 클래스 초기화가 LinkageError 로 실패하므로 여기서 한 번만 시도한다.
+     */
+    private static class SimdHolder {
+        static final boolean AVAILABLE = probe();
+
+        private static boolean probe() {
+            try {
+                float[] probe = {1f, 2f, 3f};
+                SimdDot.dot(probe, 0, probe, 0, probe.length);
+                log.info("[VectorMath] SIMD 내적 커널 사용 가능. lanes: {}", SimdDot.lanes());
+                return true;
+            } catch (LinkageError e) {
+                log.info("[VectorMath] jdk.incubator.vector 모듈이 없어 스칼라 내적 커널을 사용합니다.");
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Vector API 기반 SIMD 커널. 이 클래스만 jdk.incubator.vector 를 참조한다.
+     */
+    private static class SimdDot {
+        private static final VectorSpecies<Float> SPECIES =
+                FloatVector.SPECIES_PREFERRED;
+
+        static int lanes() {
+            return SPECIES.length();
+        }
+
+        static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            FloatVector acc = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+                FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+                acc = va.fma(vb, acc);
+            }
+            float sum = acc.reduceLanes(VectorOperators.ADD);
+            for (; i < length; i++) {
+                sum += a[aOffset + i] * b[bOffset + i];
+            }
+            return sum;
+        }
+    }
+}
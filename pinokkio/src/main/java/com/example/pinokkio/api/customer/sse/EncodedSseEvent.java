@@ -0,0 +1,82 @@
+package com.example.pinokkio.api.customer.sse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * 한 번만 인코딩한 SSE 이벤트.
+ * <p>
+ * event / id / data 필드를 SSE 형식 그대로 바이트 배열로 만들어 두고, 모든 구독자에게 같은 바이트를 쓴다.
+ * 구독자마다 메시지 컨버터가 같은 Map 을 다시 JSON 으로 직렬화하지 않는다.
+ */
+@Slf4j
+class EncodedSseEvent {
+
+    @Getter
+    private final String name;
+    // 이미 SSE 형식으로 인코딩한 프레임 하나
+    private final Set<ResponseBodyEmitter.DataWithMediaType> frame;
+
+    private EncodedSseEvent(String name, byte[] frame) {
+        this.name = name;
+        this.frame = Set.of(new ResponseBodyEmitter.DataWithMediaType(frame, MediaType.TEXT_PLAIN));
+    }
+
+    /**
+     * 인코딩한 바이트를 그대로 쓴다. (byte[] 는 ByteArrayHttpMessageConverter 가 복사 없이 쓴다)
+     * emitter.send(Object) 는 데이터 앞에 data: 를 다시 붙이므로, 필드 없이 쓰는 send(Set) 으로 보낸다.
+     */
+    void writeTo(SseEmitter emitter) throws IOException {
+        emitter.send(frame);
+    }
+
+    /**
+     * SSE 주석 프레임. 클라이언트는 무시하지만 연결이 살아 있게 한다.
+     */
+    static EncodedSseEvent comment(String name, String text) {
+        return new EncodedSseEvent(name, (":" + text + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * encode 와 같지만 직렬화에 실패하면 로그를 남기고 null 을 반환한다.
+     */
+    static EncodedSseEvent encodeOrNull(ObjectMapper objectMapper, String name, String id, Object data) {
+        try {
+            return encode(objectMapper, name, id, data);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize event '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param name 이벤트 이름
+     * @param id   이벤트 식별자 (없으면 null)
+     * @param data 문자열은 그대로, 그 외에는 JSON 으로 보낸다
+     */
+    static EncodedSseEvent encode(ObjectMapper objectMapper, String name, String id, Object data)
+            throws JsonProcessingException {
+        String payload = data instanceof String text ? text : objectMapper.writeValueAsString(data);
+
+        StringBuilder frame = new StringBuilder(payload.length() + name.length() + 32);
+        frame.append("event:").append(name).append('\n');
+        if (id != null) {
+            frame.append("id:").append(id).append('\n');
+        }
+        // 여러 줄 데이터는 줄마다 data: 를 붙여야 한다.
+        for (String line : payload.split("\n", -1)) {
+            frame.append("data:").append(line).append('\n');
+        }
+        frame.append('\n');
+        return new EncodedSseEvent(name, frame.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
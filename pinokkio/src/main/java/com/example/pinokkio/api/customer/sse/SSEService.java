@@ -2,95 +2,371 @@ package com.example.pinokkio.api.customer.sse;
 
 import com.example.pinokkio.api.customer.Customer;
 import com.example.pinokkio.api.customer.dto.response.AnalysisResult;
+import com.example.pinokkio.api.kiosk.KioskPosCache;
+import com.example.pinokkio.config.AsyncConfig;
+import com.example.pinokkio.exception.domain.pos.PosNotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 얼굴 인식 이벤트를 SSE 로 전달한다.
+ * <p>
+ * 연결은 JWT 로 확인한 주체의 토픽(pos:{posId} 또는 kiosk:{kioskId})에 등록되고,
+ * 키오스크 이벤트는 그 키오스크와 키오스크가 속한 포스의 토픽에만 전달된다.
+ * 한 매장의 이벤트(임베딩, 고객 식별자 포함)가 다른 매장 화면으로 나가지 않으며, 전송 비용은 매장 단위로만 늘어난다.
+ * <p>
+ * 이벤트는 연결별 대기열(SseSubscriber)에 넣기만 하고 네트워크 쓰기는 전송 실행기가 한다.
+ * 얼굴 분석 스레드는 느리거나 반쯤 끊긴 클라이언트를 기다리지 않는다.
+ * 연결별 대기 이벤트 수와 지연은 sse.emitter.queue.size, sse.emitter.lag 지표로 노출된다.
+ * <p>
+ * 키오스크 이벤트는 SseRelay 로 다른 노드에도 중계되어, 화면이 어느 노드에 연결되어 있어도 전달된다.
+ * 노드는 자기 노드에 구독자가 있는 포스의 채널만 구독하며, 마지막 구독자가 빠진 뒤에도 replayTtl 동안은 구독을 유지한다.
+ * 키오스크 이벤트에는 발급 시각 순으로 증가하는 번호(id, SseEventSequence)를 붙이고 토픽마다 최근 이벤트를 보관하여,
+ * 재연결한 클라이언트가 Last-Event-ID 를 보내면 끊긴 동안 놓친 이벤트를 다시 보낸다.
+ */
 @Service
 @Slf4j
 public class SSEService {
 
+    private static final String POS_TOPIC_PREFIX = "pos:";
+    private static final String KIOSK_TOPIC_PREFIX = "kiosk:";
+    private static final EncodedSseEvent HEARTBEAT = EncodedSseEvent.comment("heartbeat", "hb");
+
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    // 여러 클라이언트의 SseEmitter를 관리하기 위한 스레드 안전한 리스트입니다.
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    // 토픽별 구독자 목록입니다. 빈 목록은 제거됩니다.
+    private final Map<String, List<SseSubscriber>> subscribersByTopic = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberSequence = new AtomicLong();
+    private final KioskPosCache kioskPosCache;
+    private final TaskExecutor sseDispatchExecutor;
+    private final TaskExecutor sseControlExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final SseRelay sseRelay;
+    private final SseEventSequence sseEventSequence;
+    private final Counter droppedCounter;
+    private final Timer deliveryTimer;
+    private final Counter heartbeatCounter;
+    private final Counter reapedCounter;
+
+    // 연결별 전송 대기열 크기
+    @Value("${sse.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${sse.slow-consumer-policy:drop-oldest}")
+    private SlowConsumerPolicy slowConsumerPolicy;
+
+    // 토픽별로 보관하는 최근 이벤트 수
+    @Value("${sse.replay.buffer-size:32}")
+    private int replaySize;
+
+    // 이보다 오래된 이벤트는 재연결해도 다시 보내지 않는다.
+    @Value("${sse.replay.ttl:2m}")
+    private Duration replayTtl;
+
+    // 이 시간 동안 아무것도 쓰지 않은 연결에만 하트비트를 보낸다.
+    @Value("${sse.heartbeat.interval:15s}")
+    private Duration heartbeatInterval;
+
+    // 타이머 휠 한 칸의 시간
+    @Value("${sse.heartbeat.tick:1s}")
+    private Duration heartbeatTick;
+
+    // 대기 중인 이벤트가 이 시간 넘게 쓰이지 못하면 끊긴 연결로 보고 정리한다.
+    @Value("${sse.heartbeat.dead-after:45s}")
+    private Duration deadAfter;
+
+    private SseHeartbeatWheel heartbeatWheel;
+
+    // 토픽별 재전송 버퍼. 구독자도 이벤트도 없는 토픽의 버퍼는 replayTtl 뒤에 제거된다.
+    private Cache<String, SseReplayBuffer> replayBuffers;
+
+    public SSEService(KioskPosCache kioskPosCache,
+                      @Qualifier(AsyncConfig.SSE_DISPATCH_EXECUTOR) TaskExecutor sseDispatchExecutor,
+                      @Qualifier(AsyncConfig.SSE_CONTROL_EXECUTOR) TaskExecutor sseControlExecutor,
+                      MeterRegistry meterRegistry,
+                      ObjectMapper objectMapper,
+                      SseRelay sseRelay,
+                      SseEventSequence sseEventSequence) {
+        this.kioskPosCache = kioskPosCache;
+        this.sseDispatchExecutor = sseDispatchExecutor;
+        this.sseControlExecutor = sseControlExecutor;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.sseRelay = sseRelay;
+        this.sseEventSequence = sseEventSequence;
+        this.droppedCounter = meterRegistry.counter("sse.events.dropped");
+        this.deliveryTimer = Timer.builder("sse.event.delivery")
+                .description("이벤트를 대기열에 넣은 뒤 클라이언트에 쓸 때까지의 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.heartbeatCounter = meterRegistry.counter("sse.heartbeat", "result", "sent");
+        this.reapedCounter = meterRegistry.counter("sse.heartbeat", "result", "reaped");
+    }
+
+    @PostConstruct
+    public void init() {
+        replayBuffers = Caffeine.newBuilder()
+                .expireAfterAccess(replayTtl)
+                .build();
+        // 재전송 버퍼가 준비된 뒤에 다른 노드의 이벤트를 받는다.
+        sseRelay.setListener(this::deliverLocal);
+
+        long tickMillis = Math.max(1, heartbeatTick.toMillis());
+        heartbeatWheel = new SseHeartbeatWheel((int) Math.ceil(heartbeatInterval.toMillis() / (double) tickMillis));
+        scheduler.scheduleAtFixedRate(this::checkHeartbeats, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("SSEService initialized and heartbeat wheel started. ({} slots x {} ms)", heartbeatWheel.size(), tickMillis);
+    }
+
+    /**
+     * 타이머 휠의 현재 칸에 든 연결만 점검한다.
+     * 쓰기가 멈춘 연결은 정리하고, interval 동안 아무것도 쓰지 않은 연결에만 주석 프레임을 보낸다.
+     * 최근에 이벤트를 받은 연결은 남은 시간 뒤로 다시 예약한다.
+     */
+    private void checkHeartbeats() {
+        try {
+            long now = System.nanoTime();
+            long intervalNanos = heartbeatInterval.toNanos();
+            long tickNanos = heartbeatTick.toNanos();
+            for (SseSubscriber subscriber : heartbeatWheel.advance()) {
+                if (subscriber.isClosed()) {
+                    continue;
+                }
+                if (subscriber.lagMillis() >= deadAfter.toMillis()) {
+                    reap(subscriber);
+                    continue;
+                }
+                long idle = now - subscriber.getLastWriteNanos();
+                if (idle >= intervalNanos) {
+                    enqueue(subscriber, HEARTBEAT);
+                    heartbeatCounter.increment();
+                    heartbeatWheel.schedule(subscriber, heartbeatWheel.size());
+                } else {
+                    heartbeatWheel.schedule(subscriber, (intervalNanos - idle + tickNanos - 1) / tickNanos);
+                }
+            }
+        } catch (Exception e) {
+            // 예외로 주기 작업이 멈추지 않도록 한다.
+            log.error("Error while checking SSE heartbeats: {}", e.getMessage(), e);
+        }
+    }
+
+    private void reap(SseSubscriber subscriber) {
+        log.warn("SSE subscriber {} on {} has not written for {} ms. Closing.",
+                subscriber.getId(), subscriber.getTopic(), (long) subscriber.lagMillis());
+        reapedCounter.increment();
+        // 쓰는 중인 연결은 그 쓰기가 끝난 전송 스레드가 종료한다.
+        if (!subscriber.reap()) {
+            return;
+        }
+        // 하트비트 스레드는 종료 처리도 기다리지 않고, 전송 실행기가 멈춘 연결로 가득 차 있어도 종료되도록 제어 실행기에 맡긴다.
+        try {
+            sseControlExecutor.execute(() -> subscriber.getEmitter().complete());
+        } catch (TaskRejectedException e) {
+            log.warn("SSE dispatcher rejected closing subscriber {} on {}.", subscriber.getId(), subscriber.getTopic());
+        }
+    }
 
-    public SSEService() {
-        scheduler.scheduleAtFixedRate(this::sendKeepAlive, 0, 15, TimeUnit.SECONDS);
-        log.info("SSEService initialized and keep-alive scheduler started.");
+    public static String posTopic(UUID posId) {
+        return POS_TOPIC_PREFIX + posId;
     }
 
-    private void sendKeepAlive() {
-        log.debug("Sending keep-alive message to all connected clients.");
-        Map<String, Object> keepAliveData = new HashMap<>();
-        keepAliveData.put("status", "keep-alive");
-        sendEventToAll("keepAlive", keepAliveData);
+    public static String kioskTopic(UUID kioskId) {
+        return KIOSK_TOPIC_PREFIX + kioskId;
     }
 
     @PreDestroy
     public void destroy() {
         log.info("SSEService is being destroyed. Shutting down scheduler and completing emitters.");
         scheduler.shutdown();
-        emitters.forEach(SseEmitter::complete);
+        subscribersByTopic.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            subscriber.detach();
+            subscriber.getEmitter().complete();
+        }));
     }
 
-    // 새로운 SSE 연결을 생성하는 메서드입니다.
-    public SseEmitter createEmitter() {
-        log.info("Creating new SSE connection.");
+    /**
+     * 토픽에 새로운 SSE 연결을 생성한다.
+     *
+     * @param topic       구독할 토픽 (pos:{posId} 또는 kiosk:{kioskId})
+     * @param lastEventId 재연결한 클라이언트가 마지막으로 받은 이벤트 번호 (Last-Event-ID, 없으면 null)
+     */
+    public SseEmitter createEmitter(String topic, String lastEventId) {
+        log.info("Creating new SSE connection. topic: {}, lastEventId: {}", topic, lastEventId);
         SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        this.emitters.add(emitter);
-        log.debug("Emitter added. Total emitters: {}", emitters.size());
+        String id = String.valueOf(subscriberSequence.incrementAndGet());
+        List<Meter> meters = new ArrayList<>(2);
+        UUID relayPosId = relayPosIdOf(topic);
+        SseSubscriber subscriber = new SseSubscriber(
+                id, topic, emitter, queueCapacity, slowConsumerPolicy, droppedCounter, deliveryTimer,
+                () -> removeSubscriber(topic, id, meters, relayPosId));
+        meters.add(Gauge.builder("sse.emitter.queue.size", subscriber, SseSubscriber::queueSize)
+                .tags("topic", topic, "emitter", id)
+                .register(meterRegistry));
+        meters.add(Gauge.builder("sse.emitter.lag", subscriber, SseSubscriber::lagMillis)
+                .tags("topic", topic, "emitter", id)
+                .baseUnit("milliseconds")
+                .register(meterRegistry));
+
 
         emitter.onCompletion(() -> {
-            this.emitters.remove(emitter);
-            log.info("SSE connection completed. Remaining emitters: {}", emitters.size());
+            subscriber.detach();
+            removeSubscriber(topic, id, meters, relayPosId);
+            log.info("SSE connection completed. topic: {}", topic);
         });
 
         emitter.onTimeout(() -> {
-            this.emitters.remove(emitter);
-            log.warn("SSE connection timed out. Remaining emitters: {}", emitters.size());
+            subscriber.detach();
+            removeSubscriber(topic, id, meters, relayPosId);
+            log.warn("SSE connection timed out. topic: {}", topic);
         });
 
-        try {
-            emitter.send(SseEmitter.event()
-                    .name("connect")
-                    .data("Connected successfully"));
-            log.info("Connected successfully message sent to client.");
-        } catch (IOException e) {
-            log.error("Error sending connect event: {}", e.getMessage());
-            emitter.completeWithError(e);
+        emitter.onError(e -> {
+            subscriber.detach();
+            removeSubscriber(topic, id, meters, relayPosId);
+            log.warn("SSE connection failed. topic: {}, error: {}", topic, e.getMessage());
+        });
+
+        // 등록 전에 포스 채널 구독을 요청하여 다른 노드의 이벤트도 재전송 버퍼에 쌓이게 한다. (구독은 제어 실행기에서 한다)
+        if (relayPosId != null) {
+            sseRelay.watch(relayPosId);
+        }
+
+        // 등록과 재전송 사이에 들어온 이벤트가 빠지거나 두 번 가지 않도록 버퍼 잠금 안에서 함께 처리한다.
+        SseReplayBuffer buffer = replayBuffers.get(topic, key -> new SseReplayBuffer(replaySize));
+        synchronized (buffer) {
+            subscribersByTopic.compute(topic, (key, subscribers) -> {
+                List<SseSubscriber> list = subscribers != null ? subscribers : new CopyOnWriteArrayList<>();
+                list.add(subscriber);
+                return list;
+            });
+
+            EncodedSseEvent connected = EncodedSseEvent.encodeOrNull(objectMapper, "connect", null, "Connected successfully");
+            if (connected != null) {
+                enqueue(subscriber, connected);
+            }
+            heartbeatWheel.schedule(subscriber, heartbeatWheel.size());
+            Long lastSequence = parseLastEventId(lastEventId);
+            if (lastSequence != null) {
+                List<EncodedSseEvent> missed = buffer.since(lastSequence, replayTtl.toMillis());
+                log.info("Replaying {} missed events on topic {} after id {}.", missed.size(), topic, lastSequence);
+                missed.forEach(event -> enqueue(subscriber, event));
+            }
         }
         return emitter;
     }
 
+    private Long parseLastEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring invalid Last-Event-ID: {}", lastEventId);
+            return null;
+        }
+    }
+
+    // 종료 콜백이 여러 번 불릴 수 있으므로 실제로 목록에서 빠진 첫 호출만 정리한다.
+    private void removeSubscriber(String topic, String id, List<Meter> meters, UUID relayPosId) {
+        AtomicBoolean removed = new AtomicBoolean();
+        subscribersByTopic.computeIfPresent(topic, (key, subscribers) -> {
+            removed.set(subscribers.removeIf(subscriber -> subscriber.getId().equals(id)));
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (!removed.get()) {
+            return;
+        }
+        meters.forEach(meterRegistry::remove);
+        if (relayPosId != null) {
+            releaseRelay(relayPosId);
+        }
+    }
+
+    // 토픽의 이벤트가 실려 오는 포스 채널의 포스 식별자, 알 수 없으면 null
+    private UUID relayPosIdOf(String topic) {
+        try {
+            if (topic.startsWith(POS_TOPIC_PREFIX)) {
+                return UUID.fromString(topic.substring(POS_TOPIC_PREFIX.length()));
+            }
+            if (topic.startsWith(KIOSK_TOPIC_PREFIX)) {
+                return kioskPosCache.getPosId(UUID.fromString(topic.substring(KIOSK_TOPIC_PREFIX.length())));
+            }
+        } catch (PosNotFoundException | IllegalArgumentException e) {
+            log.warn("No POS found for topic {}. Relayed events will not reach this subscriber.", topic);
+        }
+        return null;
+    }
+
+    // 곧 재연결한 클라이언트가 이 노드의 재전송 버퍼에서 놓친 이벤트를 받을 수 있도록 replayTtl 뒤에 구독을 해지한다.
+    // 스케줄러는 시간만 재고, Redis 구독 해지는 unwatch 가 제어 실행기에 맡긴다. (하트비트 점검을 늦추지 않는다)
+    private void releaseRelay(UUID posId) {
+        try {
+            scheduler.schedule(() -> sseRelay.unwatch(posId), replayTtl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 종료 중이면 바로 해지한다.
+            sseRelay.unwatch(posId);
+        }
+    }
+
     // 대기 상태 변경 이벤트를 전송하는 메서드입니다.
-    public void sendWaitingEvent(boolean isWaiting) {
-        log.info("Sending waiting status event: {}", isWaiting);
+    public void sendWaitingEvent(UUID kioskId, boolean isWaiting) {
+        log.info("Sending waiting status event to kiosk {}: {}", kioskId, isWaiting);
         Map<String, Object> eventData = new HashMap<>();
         eventData.put("waiting", isWaiting);
-        sendEventToAll("waitingStatus", eventData);
+        sendEventToKiosk(kioskId, "waitingStatus", eventData);
     }
 
     // 얼굴 감지 결과를 전송하는 메서드입니다.
-    public void sendFaceDetectionResult(boolean isFaceDetected) {
-        log.info("Sending face detection result: {}", isFaceDetected);
+    public void sendFaceDetectionResult(UUID kioskId, boolean isFaceDetected) {
+        log.info("Sending face detection result to kiosk {}: {}", kioskId, isFaceDetected);
         Map<String, Object> eventData = new HashMap<>();
         eventData.put("isFace", isFaceDetected);
-        sendEventToAll("faceDetectionResult", eventData);
+        sendEventToKiosk(kioskId, "faceDetectionResult", eventData);
+    }
+
+    // 분석 서버를 사용할 수 없어 얼굴 인식을 건너뛰었음을 전송하는 메서드입니다. (비회원으로 계속 진행)
+    public void sendRecognitionSkipped(UUID kioskId, String reason) {
+        log.info("Sending recognition skipped event to kiosk {}. reason: {}", kioskId, reason);
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("reason", reason);
+        eventData.put("isFace", false);
+        sendEventToKiosk(kioskId, "recognitionSkipped", eventData);
     }
 
     // 얼굴 분석 결과와 고객 정보를 전송하는 메서드입니다.
-    public void sendAnalysisResult(AnalysisResult analysisResult, Customer customer) {
+    public void sendAnalysisResult(UUID kioskId, AnalysisResult analysisResult, Customer customer) {
         log.info("Sending analysis result. Age: {}, Gender: {}", analysisResult.getAge(), analysisResult.getGender());
         Map<String, Object> eventData = new HashMap<>();
         eventData.put("age", analysisResult.getAge());
@@ -106,31 +382,85 @@ public class SSEService {
             eventData.put("customerGender", customer.getGender());
         }
 
-        sendEventToAll("analysisResult", eventData);
+        sendEventToKiosk(kioskId, "analysisResult", eventData);
     }
 
-    // 모든 연결된 클라이언트에게 이벤트를 전송하는 private 메서드입니다.
-    private void sendEventToAll(String eventName, Map<String, Object> eventData) {
-        log.debug("Sending event '{}' to all clients.", eventName);
-        List<SseEmitter> deadEmitters = new ArrayList<>();
+    // 키오스크와 키오스크가 속한 포스의 구독자에게 이벤트를 전송하는 private 메서드입니다.
+    // 다른 노드의 구독자에게는 포스 채널로 중계합니다. (발행은 전송 실행기에서 합니다)
+    private void sendEventToKiosk(UUID kioskId, String eventName, Map<String, Object> eventData) {
+        UUID posId = null;
+        try {
+            posId = kioskPosCache.getPosId(kioskId);
+        } catch (PosNotFoundException e) {
+            log.warn("No POS found for kiosk {}. Sending event '{}' to the kiosk only.", kioskId, eventName);
+        }
+
+        // 로컬 전송과 중계 모두 같은 번호와 JSON 을 쓴다. (번호 발급은 네트워크를 거치지 않는다)
+        Long sequence = posId == null ? null : sseEventSequence.next();
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(eventData);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize event '{}': {}", eventName, e.getMessage());
+            return;
+        }
+
+        deliverLocal(kioskId, posId, eventName, sequence, payload);
+        if (posId != null) {
+            sseRelay.publish(kioskId, posId, eventName, sequence, payload);
+        }
+    }
+
+    // 이 노드에 연결된 키오스크와 포스 구독자에게 이벤트를 전송하는 private 메서드입니다.
+    private void deliverLocal(UUID kioskId, UUID posId, String eventName, Long sequence, String payload) {
+        List<String> topics = posId == null
+                ? List.of(kioskTopic(kioskId))
+                : List.of(kioskTopic(kioskId), posTopic(posId));
+        sendEvent(topics, eventName, sequence, payload);
+    }
 
-        for (SseEmitter emitter : this.emitters) {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name(eventName)
-                        .data(eventData));
-            } catch (IOException e) {
-                log.error("IOException while sending event '{}': {}", eventName, e.getMessage());
-                deadEmitters.add(emitter);
-            } catch (Exception e) {
-                log.error("Unexpected error while sending event '{}': {}", eventName, e.getMessage());
-                deadEmitters.add(emitter);
+    // 토픽 구독자의 대기열에 이벤트를 넣는 private 메서드입니다. 네트워크 쓰기는 기다리지 않습니다.
+    // 번호가 있는 이벤트는 재연결 시 다시 보낼 수 있도록 토픽의 링 버퍼에도 넣습니다.
+    private void sendEvent(List<String> topics, String eventName, Long sequence, Object eventData) {
+        EncodedSseEvent event = EncodedSseEvent.encodeOrNull(
+                objectMapper, eventName, sequence == null ? null : String.valueOf(sequence), eventData);
+        if (event == null) {
+            return;
+        }
+        for (String topic : topics) {
+            if (sequence == null) {
+                fanOut(topic, event);
+                continue;
+            }
+            SseReplayBuffer buffer = replayBuffers.get(topic, key -> new SseReplayBuffer(replaySize));
+            synchronized (buffer) {
+                buffer.append(sequence, event);
+                fanOut(topic, event);
             }
         }
+    }
 
-        if (!deadEmitters.isEmpty()) {
-            this.emitters.removeAll(deadEmitters);
-            log.warn("Removed {} dead emitters. Remaining emitters: {}", deadEmitters.size(), emitters.size());
+    private void fanOut(String topic, EncodedSseEvent event) {
+        List<SseSubscriber> subscribers = subscribersByTopic.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        log.debug("Queueing event '{}' for topic {}.", event.getName(), topic);
+        for (SseSubscriber subscriber : subscribers) {
+            enqueue(subscriber, event);
+        }
+    }
+
+    private void enqueue(SseSubscriber subscriber, EncodedSseEvent event) {
+        if (!subscriber.offer(event)) {
+            return;
+        }
+        try {
+            sseDispatchExecutor.execute(subscriber::drain);
+        } catch (TaskRejectedException e) {
+            // 대기열의 이벤트는 남겨 두고 다음 이벤트가 들어올 때 다시 전송을 시도한다.
+            log.warn("SSE dispatcher rejected subscriber {} on {}.", subscriber.getId(), subscriber.getTopic());
+            subscriber.unschedule();
         }
     }
 }
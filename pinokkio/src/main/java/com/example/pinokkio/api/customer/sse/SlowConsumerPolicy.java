@@ -0,0 +1,11 @@
+package com.example.pinokkio.api.customer.sse;
+
+/**
+ * SSE 연결의 전송 대기열이 가득 찼을 때의 처리 방식.
+ */
+public enum SlowConsumerPolicy {
+    // 가장 오래된 이벤트를 버리고 새 이벤트를 넣는다.
+    DROP_OLDEST,
+    // 대기열을 비우고 연결을 끊는다. (클라이언트가 재연결한다)
+    DISCONNECT
+}
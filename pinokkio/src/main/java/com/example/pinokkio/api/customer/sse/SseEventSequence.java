@@ -0,0 +1,29 @@
+package com.example.pinokkio.api.customer.sse;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 이벤트 번호를 발급한다.
+ * <p>
+ * 번호는 "발급 시각(ms) * 1000 + 같은 ms 안의 순번" 이므로 네트워크 왕복 없이 이벤트를 만든 스레드에서 바로 발급된다.
+ * 한 노드 안에서는 항상 증가하고, 노드 사이에서는 시각 순서를 따르므로 다른 노드로 재연결해도 Last-Event-ID 로 이어 받을 수 있다.
+ * (노드 사이의 시계 차이만큼은 순서가 어긋날 수 있다)
+ */
+@Component
+public class SseEventSequence {
+
+    // 1ms 안에 이보다 많이 발급하면 번호가 시각보다 앞서 나가며, 이후 발급에서 다시 맞춰진다.
+    private static final long IDS_PER_MILLI = 1000;
+
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @return 다음 이벤트 번호
+     */
+    long next() {
+        long floor = System.currentTimeMillis() * IDS_PER_MILLI;
+        return last.updateAndGet(previous -> Math.max(previous + 1, floor));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.pinokkio.api.customer.sse;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SSE 연결의 다음 점검 시각을 담는 해시 타이머 휠.
+ * <p>
+ * 칸 하나가 한 틱이며, 틱마다 현재 칸에 든 연결만 꺼낸다.
+ * 모든 연결을 한 번에 훑지 않고 점검이 틱에 고르게 나뉘므로 주기적인 CPU·할당 급증이 생기지 않는다.
+ * schedule 은 어느 스레드에서나 호출할 수 있고, advance 는 한 스레드에서만 호출한다.
+ */
+class SseHeartbeatWheel {
+
+    private final AtomicReferenceArray<Queue<SseSubscriber>> slots;
+    private volatile int cursor;
+
+    SseHeartbeatWheel(int slotCount) {
+        this.slots = new AtomicReferenceArray<>(Math.max(2, slotCount));
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    int size() {
+        return slots.length();
+    }
+
+    /**
+     * @param ticks 몇 틱 뒤에 점검할지 (1 ~ 칸 수 사이로 맞춘다)
+     */
+    void schedule(SseSubscriber subscriber, long ticks) {
+        int delay = (int) Math.max(1, Math.min(ticks, slots.length()));
+        slots.get((cursor + delay) % slots.length()).add(subscriber);
+    }
+
+    /**
+     * 현재 칸을 비우고 한 칸 전진한다.
+     *
+     * @return 이번 틱에 점검할 연결
+     */
+    Queue<SseSubscriber> advance() {
+        int current = cursor;
+        // 꺼내는 동안 같은 칸으로 다시 넣는 연결은 새 큐에 들어가 한 바퀴 뒤에 점검된다.
+        Queue<SseSubscriber> due = slots.getAndSet(current, new ConcurrentLinkedQueue<>());
+        cursor = (current + 1) % slots.length();
+        return due;
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.pinokkio.api.customer.sse;
+
+import com.example.pinokkio.config.AsyncConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 백엔드 노드 사이의 SSE 이벤트 중계.
+ * <p>
+ * 키오스크의 화면은 A 노드에, CaptureImages 호출은 B 노드에 연결될 수 있으므로,
+ * 이벤트를 만든 노드는 로컬 구독자에게 바로 보내고 포스별 Redis 채널(sse:pos:{posId})에도 한 번 발행한다.
+ * 발행은 발행 대기열에 넣기만 하고 Redis 호출은 제어 실행기가 넣은 순서대로 한다. (얼굴 분석 스레드와 클라이언트 전송은 기다리지 않는다)
+ * 각 노드는 자기 노드에 구독자가 있는 포스의 채널만 구독하여, 그 구독자에게만 전달한다.
+ * 채널 구독·해지도 제어 실행기에서 하므로 구독 요청 스레드와 하트비트 스레드는 Redis 를 기다리지 않는다.
+ * 자기 노드가 발행한 메시지와 이미 받은 메시지는 이벤트 식별자로 걸러낸다.
+ * 발행부터 수신까지의 지연은 sse.relay.lag 지표로 노출된다. (노드 간 시계 차이가 포함된다)
+ */
+@Component
+@Slf4j
+public class SseRelay implements MessageListener {
+
+    static final String CHANNEL_PREFIX = "sse:pos:";
+    private static final int RECENT_EVENT_IDS = 4096;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor sseControlExecutor;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    // 최근에 발행하거나 받은 이벤트 식별자 (오래된 것부터 제거)
+    private final Map<String, Boolean> recentEventIds = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RECENT_EVENT_IDS;
+        }
+    };
+
+    // 포스별 구독 수. 0 이 되면 채널 구독을 해지한다.
+    private final Map<UUID, Integer> watchCounts = new HashMap<>();
+    // 실제로 구독 중인 포스 채널. 이 객체의 잠금 안에서 한 번에 하나씩 구독 상태를 맞춘다.
+    private final Set<UUID> subscribedPosIds = new HashSet<>();
+
+    // 발행 대기열. 제어 실행기에서 한 번에 하나의 작업만 비운다.
+    private final Deque<OutgoingMessage> outbox = new ArrayDeque<>();
+    private boolean draining;
+
+    private final Counter deliveredCounter;
+    private final Counter duplicateCounter;
+    private final Counter publishDroppedCounter;
+    private final Counter publishFailedCounter;
+    private final Timer lagTimer;
+
+    private volatile RelayListener listener;
+
+    @Value("${sse.relay.enabled:true}")
+    private boolean enabled;
+
+    // 발행 대기열 크기. 가득 차면 가장 오래된 메시지를 버린다.
+    @Value("${sse.relay.outbox-capacity:1024}")
+    private int outboxCapacity;
+
+    /**
+     * 다른 노드에서 발행된 이벤트를 받는다.
+     */
+    interface RelayListener {
+        void deliver(UUID kioskId, UUID posId, String eventName, Long sequence, String payload);
+    }
+
+    public SseRelay(StringRedisTemplate stringRedisTemplate,
+                    RedisMessageListenerContainer listenerContainer,
+                    ObjectMapper objectMapper,
+                    @Qualifier(AsyncConfig.SSE_CONTROL_EXECUTOR) TaskExecutor sseControlExecutor,
+                    MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.sseControlExecutor = sseControlExecutor;
+        this.deliveredCounter = meterRegistry.counter("sse.relay.received", "result", "delivered");
+        this.duplicateCounter = meterRegistry.counter("sse.relay.received", "result", "duplicate");
+        this.publishDroppedCounter = meterRegistry.counter("sse.relay.published", "result", "dropped");
+        this.publishFailedCounter = meterRegistry.counter("sse.relay.published", "result", "failed");
+        this.lagTimer = Timer.builder("sse.relay.lag")
+                .description("다른 노드가 이벤트를 발행한 뒤 이 노드가 받을 때까지의 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("SSE relay is disabled. Events are delivered to local subscribers only.");
+            return;
+        }
+        log.info("SSE relay enabled. node: {}", nodeId);
+    }
+
+    /**
+     * 포스 채널을 구독한다. 이 노드에 포스의 이벤트를 받을 구독자가 생길 때마다 호출한다.
+     * 구독은 제어 실행기에서 하며 호출한 스레드는 기다리지 않는다.
+     */
+    void watch(UUID posId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (watchCounts) {
+            watchCounts.merge(posId, 1, Integer::sum);
+        }
+        reconcileLater(posId);
+    }
+
+    /**
+     * watch 한 번을 되돌린다. 마지막 구독자가 빠지면 제어 실행기에서 포스 채널 구독을 해지한다.
+     */
+    void unwatch(UUID posId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (watchCounts) {
+            watchCounts.computeIfPresent(posId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+        reconcileLater(posId);
+    }
+
+    private void reconcileLater(UUID posId) {
+        try {
+            sseControlExecutor.execute(() -> reconcile(posId));
+        } catch (TaskRejectedException e) {
+            // 다음 watch/unwatch 때 다시 맞춘다.
+            log.warn("SSE control executor rejected relay subscription change for POS {}.", posId);
+        }
+    }
+
+    // 구독 수에 맞게 채널 구독 상태를 맞춘다. 작업이 어떤 순서로 실행되어도 마지막 작업이 최종 구독 수를 따르며,
+    // 이미 맞으면 Redis 를 호출하지 않는다. 실패한 구독·해지는 다음 watch/unwatch 때 다시 시도된다.
+    private void reconcile(UUID posId) {
+        synchronized (subscribedPosIds) {
+            boolean wanted;
+            synchronized (watchCounts) {
+                wanted = watchCounts.containsKey(posId);
+            }
+            if (wanted == subscribedPosIds.contains(posId)) {
+                return;
+            }
+            if (changeSubscription(posId, wanted)) {
+                if (wanted) {
+                    subscribedPosIds.add(posId);
+                } else {
+                    subscribedPosIds.remove(posId);
+                }
+            }
+        }
+    }
+
+    private boolean changeSubscription(UUID posId, boolean subscribe) {
+        ChannelTopic topic = new ChannelTopic(CHANNEL_PREFIX + posId);
+        try {
+            if (subscribe) {
+                listenerContainer.addMessageListener(this, topic);
+            } else {
+                listenerContainer.removeMessageListener(this, topic);
+            }
+            log.debug("SSE relay {} {}.", subscribe ? "subscribed to" : "unsubscribed from", topic.getTopic());
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Failed to {} SSE relay channel {}: {}",
+                    subscribe ? "subscribe to" : "unsubscribe from", topic.getTopic(), e.getMessage());
+            return false;
+        }
+    }
+
+    void setListener(RelayListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 이벤트를 포스 채널 발행 대기열에 넣는다. 로컬 구독자에게는 호출한 쪽이 직접 전달한다.
+     *
+     * @param sequence 이벤트 번호 (모든 노드에서 같은 번호로 전송·보관된다)
+     * @param payload  직렬화가 끝난 이벤트 데이터 (JSON)
+     */
+    void publish(UUID kioskId, UUID posId, String eventName, Long sequence, String payload) {
+        if (!enabled) {
+            return;
+        }
+        String eventId = UUID.randomUUID().toString();
+        remember(eventId);
+        String message;
+        try {
+            message = objectMapper.writeValueAsString(new RelayMessage(
+                    eventId, nodeId, System.currentTimeMillis(), kioskId, posId, eventName, sequence, payload));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to relay SSE event '{}' for POS {}: {}", eventName, posId, e.getMessage());
+            return;
+        }
+
+        synchronized (outbox) {
+            if (outbox.size() >= outboxCapacity) {
+                // 로컬 구독자에게는 이미 전달되었으므로 다른 노드로의 중계만 빠진다.
+                outbox.pollFirst();
+                publishDroppedCounter.increment();
+            }
+            outbox.addLast(new OutgoingMessage(CHANNEL_PREFIX + posId, message));
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        try {
+            sseControlExecutor.execute(this::drainOutbox);
+        } catch (TaskRejectedException e) {
+            // 대기열의 메시지는 남겨 두고 다음 발행 때 다시 시도한다.
+            log.warn("SSE control executor rejected relay publishing. {} messages waiting.", outboxSize());
+            synchronized (outbox) {
+                draining = false;
+            }
+        }
+    }
+
+    /**
+     * 발행 대기열이 빌 때까지 넣은 순서대로 발행한다. 제어 실행기에서만 호출된다.
+     */
+    private void drainOutbox() {
+        while (true) {
+            OutgoingMessage next;
+            synchronized (outbox) {
+                next = outbox.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                stringRedisTemplate.convertAndSend(next.channel, next.message);
+            } catch (DataAccessException e) {
+                publishFailedCounter.increment();
+                log.warn("Failed to relay SSE event to {}: {}", next.channel, e.getMessage());
+            }
+        }
+    }
+
+    private int outboxSize() {
+        synchronized (outbox) {
+            return outbox.size();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        RelayMessage relayed;
+        try {
+            relayed = objectMapper.readValue(message.getBody(), RelayMessage.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed SSE relay message: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(relayed.getOrigin()) || !remember(relayed.getEventId())) {
+            duplicateCounter.increment();
+            return;
+        }
+
+        lagTimer.record(Math.max(0, System.currentTimeMillis() - relayed.getPublishedAt()), TimeUnit.MILLISECONDS);
+        RelayListener current = listener;
+        if (current != null) {
+            current.deliver(relayed.getKioskId(), relayed.getPosId(), relayed.getEventName(),
+                    relayed.getSequence(), relayed.getPayload());
+            deliveredCounter.increment();
+        }
+    }
+
+    // 처음 보는 이벤트이면 true
+    private boolean remember(String eventId) {
+        synchronized (recentEventIds) {
+            return recentEventIds.put(eventId, Boolean.TRUE) == null;
+        }
+    }
+
+    // 발행 대기 중인 메시지
+    private static class OutgoingMessage {
+        private final String channel;
+        private final String message;
+
+        private OutgoingMessage(String channel, String message) {
+            this.channel = channel;
+            this.message = message;
+        }
+    }
+
+    // Redis 채널로 주고받는 이벤트
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class RelayMessage {
+        private String eventId;
+        private String origin;
+        private long publishedAt;
+        private UUID kioskId;
+        private UUID posId;
+        private String eventName;
+        private Long sequence;
+        private String payload;
+    }
+}
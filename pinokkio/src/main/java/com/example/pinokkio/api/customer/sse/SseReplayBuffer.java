@@ -0,0 +1,64 @@
+package com.example.pinokkio.api.customer.sse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 토픽 하나의 최근 이벤트를 보관하는 고정 크기 링 버퍼.
+ * <p>
+ * 재연결한 클라이언트가 Last-Event-ID 를 보내면 그 번호 이후의 이벤트를 다시 보낸다.
+ * 이벤트 추가와 구독자 전송, 구독자 등록과 재전송은 이 객체의 잠금 안에서 함께 수행하여
+ * 재연결 중에 들어온 이벤트가 빠지거나 두 번 가지 않게 한다.
+ */
+class SseReplayBuffer {
+
+    private final Entry[] entries;
+    private int next;
+    private int size;
+
+    SseReplayBuffer(int capacity) {
+        this.entries = new Entry[Math.max(1, capacity)];
+    }
+
+    synchronized void append(long sequence, EncodedSseEvent event) {
+        entries[next] = new Entry(sequence, event, System.currentTimeMillis());
+        next = (next + 1) % entries.length;
+        if (size < entries.length) {
+            size++;
+        }
+    }
+
+    /**
+     * @param lastSequence 클라이언트가 마지막으로 받은 이벤트 번호
+     * @param maxAgeMillis 이보다 오래된 이벤트는 다시 보내지 않는다
+     * @return lastSequence 이후의 이벤트 (번호 순)
+     */
+    synchronized List<EncodedSseEvent> since(long lastSequence, long maxAgeMillis) {
+        long oldest = System.currentTimeMillis() - maxAgeMillis;
+        List<Entry> missed = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries[i];
+            if (entry.sequence > lastSequence && entry.createdAt >= oldest) {
+                missed.add(entry);
+            }
+        }
+        // 다른 노드에서 중계된 이벤트는 번호 순서와 다르게 도착할 수 있다.
+        missed.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<EncodedSseEvent> events = new ArrayList<>(missed.size());
+        missed.forEach(entry -> events.add(entry.event));
+        return events;
+    }
+
+    private static class Entry {
+        private final long sequence;
+        private final EncodedSseEvent event;
+        private final long createdAt;
+
+        private Entry(long sequence, EncodedSseEvent event, long createdAt) {
+            this.sequence = sequence;
+            this.event = event;
+            this.createdAt = createdAt;
+        }
+    }
+}
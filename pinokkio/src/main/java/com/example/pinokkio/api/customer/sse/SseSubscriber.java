@@ -0,0 +1,220 @@
+package com.example.pinokkio.api.customer.sse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 연결 하나와 그 연결로 보낼 이벤트 대기열.
+ * <p>
+ * 생산자는 offer 로 대기열에 넣기만 하고 네트워크 쓰기는 기다리지 않는다.
+ * 전송은 전송 실행기에서 drain 이 연결마다 한 번에 하나씩, 넣은 순서대로 수행한다.
+ * 대기열이 가득 차면 SlowConsumerPolicy 에 따라 가장 오래된 이벤트를 버리거나 연결을 끊는다.
+ */
+@Slf4j
+class SseSubscriber {
+
+    @Getter
+    private final String id;
+    @Getter
+    private final String topic;
+    @Getter
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final SlowConsumerPolicy policy;
+    private final Counter droppedCounter;
+    private final Timer deliveryTimer;
+    private final Runnable onClose;
+
+    private final Deque<QueuedEvent> queue = new ArrayDeque<>();
+    private boolean scheduled;
+    private boolean closing;
+    private boolean closed;
+    // 전송 스레드가 emitter 에 쓰는 중이면 true
+    private boolean writing;
+    // 쓰는 중에 정리된 연결이면 쓰기가 끝난 전송 스레드가 연결을 종료한다.
+    private boolean completeAfterWrite;
+    // 마지막으로 쓰기에 성공한 시각 (하트비트 점검용)
+    private volatile long lastWriteNanos = System.nanoTime();
+
+    SseSubscriber(String id,
+                  String topic,
+                  SseEmitter emitter,
+                  int capacity,
+                  SlowConsumerPolicy policy,
+                  Counter droppedCounter,
+                  Timer deliveryTimer,
+                  Runnable onClose) {
+        this.id = id;
+        this.topic = topic;
+        this.emitter = emitter;
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.droppedCounter = droppedCounter;
+        this.deliveryTimer = deliveryTimer;
+        this.onClose = onClose;
+    }
+
+    /**
+     * 이벤트를 대기열에 넣는다.
+     *
+     * @return 전송 작업을 새로 올려야 하면 true (true 를 받은 쪽이 drain 을 실행기에 맡긴다)
+     */
+    synchronized boolean offer(EncodedSseEvent event) {
+        if (closing || closed) {
+            return false;
+        }
+        if (queue.size() >= capacity) {
+            if (policy == SlowConsumerPolicy.DISCONNECT) {
+                log.warn("SSE subscriber {} on {} is too slow. Disconnecting.", id, topic);
+                droppedCounter.increment(queue.size() + 1);
+                queue.clear();
+                closing = true;
+                return schedule();
+            }
+            queue.pollFirst();
+            droppedCounter.increment();
+        }
+        queue.addLast(new QueuedEvent(event, System.nanoTime()));
+        return schedule();
+    }
+
+    /**
+     * 클라이언트가 연결을 끊었거나 시간이 초과되어 더 보낼 수 없을 때 호출된다.
+     */
+    synchronized void detach() {
+        closed = true;
+        queue.clear();
+    }
+
+    // 전송 작업이 실행기에 올라가지 못했으면 다음 offer 가 다시 올리도록 표시를 지운다.
+    synchronized void unschedule() {
+        scheduled = false;
+    }
+
+    /**
+     * 대기열이 빌 때까지 이벤트를 전송한다. 전송 실행기에서만 호출된다.
+     */
+    void drain() {
+        while (true) {
+            QueuedEvent next;
+            synchronized (this) {
+                if (closed) {
+                    queue.clear();
+                    scheduled = false;
+                    return;
+                }
+                if (closing) {
+                    queue.clear();
+                    scheduled = false;
+                    break;
+                }
+                next = queue.pollFirst();
+                if (next == null) {
+                    scheduled = false;
+                    return;
+                }
+                writing = true;
+            }
+            try {
+                next.event.writeTo(emitter);
+                lastWriteNanos = System.nanoTime();
+                deliveryTimer.record(lastWriteNanos - next.enqueuedAt, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                log.warn("Failed to send SSE event to subscriber {} on {}: {}", id, topic, e.getMessage());
+                synchronized (this) {
+                    writing = false;
+                    queue.clear();
+                    closing = true;
+                }
+                emitter.completeWithError(e);
+                close();
+                return;
+            }
+            boolean reaped;
+            synchronized (this) {
+                writing = false;
+                reaped = completeAfterWrite;
+            }
+            if (reaped) {
+                emitter.complete();
+                return;
+            }
+        }
+        // 생산자 스레드가 느린 연결의 쓰기를 기다리지 않도록 연결 종료도 전송 스레드에서 한다.
+        emitter.complete();
+        close();
+    }
+
+    /**
+     * 쓰기가 멈춘 연결을 정리한다. 더 이상 이벤트를 받지 않고 토픽에서 빠진다.
+     * 멈춘 쓰기가 emitter 잠금을 잡고 있으므로, 쓰는 중이면 그 쓰기가 끝나거나 시간 초과로 실패한 뒤 전송 스레드가 연결을 종료한다.
+     *
+     * @return 쓰는 중이 아니어서 호출한 쪽이 연결을 종료해야 하면 true
+     */
+    boolean reap() {
+        boolean closeNow;
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+            closeNow = !writing;
+            completeAfterWrite = writing;
+        }
+        onClose.run();
+        return closeNow;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    long getLastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    synchronized int queueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return 가장 오래 기다린 이벤트의 대기 시간(ms), 대기열이 비어 있으면 0
+     */
+    synchronized double lagMillis() {
+        QueuedEvent oldest = queue.peekFirst();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedAt) / 1_000_000.0;
+    }
+
+    private boolean schedule() {
+        if (scheduled) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    private void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        onClose.run();
+    }
+
+    private static class QueuedEvent {
+        private final EncodedSseEvent event;
+        private final long enqueuedAt;
+
+        private QueuedEvent(EncodedSseEvent event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
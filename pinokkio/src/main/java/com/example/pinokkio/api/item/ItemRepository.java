@@ -85,4 +85,36 @@ public interface ItemRepository extends JpaRepository<Item, UUID> {
 
 
     Optional<Item> findItemByIdAndPosId(UUID id, UUID posId);
+
+    /**
+     * 재고가 주문 수량 이상일 때만 재고를 차감한다.
+     * 조건과 차감이 한 문장에서 처리되므로 동시에 주문해도 재고가 음수가 되지 않는다.
+     * @param itemId   아이템 아이디
+     * @param quantity 차감할 수량
+     * @return 차감된 행 수 (재고가 부족하면 0)
+     */
+    @Modifying
+    @Query("UPDATE Item i " +
+            "SET i.amount = i.amount - :quantity " +
+            "WHERE i.id = :itemId " +
+            "AND i.amount >= :quantity")
+    int decreaseAmount(@Param("itemId") UUID itemId, @Param("quantity") int quantity);
+
+    /**
+     * Redis 에서 이미 예약된 재고 차감을 DB 에 반영한다. (재고 확인은 Redis 예약에서 끝났다)
+     * @param itemId   아이템 아이디
+     * @param quantity 차감할 수량 (음수이면 복구)
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.amount = i.amount - :quantity WHERE i.id = :itemId")
+    int subtractAmount(@Param("itemId") UUID itemId, @Param("quantity") int quantity);
+
+    /**
+     * 아이템 재고를 주어진 값으로 설정한다.
+     * @param itemId 아이템 아이디
+     * @param amount 재고
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.amount = :amount WHERE i.id = :itemId")
+    int setAmount(@Param("itemId") UUID itemId, @Param("amount") int amount);
 }
@@ -5,6 +5,7 @@ import com.example.pinokkio.api.category.CategoryRepository;
 import com.example.pinokkio.api.item.dto.request.ItemRequest;
 import com.example.pinokkio.api.item.dto.request.UpdateItemRequest;
 import com.example.pinokkio.api.item.image.ImageService;
+import com.example.pinokkio.api.item.inventory.InventoryStore;
 import com.example.pinokkio.api.pos.Pos;
 import com.example.pinokkio.api.user.UserService;
 import com.example.pinokkio.common.type.IsScreen;
@@ -39,6 +40,7 @@ public class ItemService {
     private final CategoryRepository categoryRepository;
     private final ImageService imageService;
     private final UserService userService;
+    private final InventoryStore inventoryStore;
 
     /**
      * 특정 포스의 개별 아이템 조회
@@ -112,6 +114,7 @@ public class ItemService {
 
         updateItemDetails(item, updateRequest, category);
         updateItemImage(item, file, updateRequest.getUseExistingImage());
+        inventoryStore.setAmountAfterCommit(posId, itemId, updateRequest.getAmount());
     }
 
     private void updateItemDetails(Item item, UpdateItemRequest updateRequest, Category category) {
@@ -185,6 +188,7 @@ public class ItemService {
         EntityUtils.getEntityById(itemRepository, itemId, ItemNotFoundException::new);
         validateItem(itemId, posId);
         itemRepository.deleteByItemIdAndPosId(itemId, posId);
+        inventoryStore.removeAfterCommit(posId, itemId);
     }
 
     @Transactional
@@ -0,0 +1,41 @@
+package com.example.pinokkio.api.item.inventory;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * DB 에 반영한 재고 저널 항목의 기록.
+ * 재고 변경과 같은 트랜잭션에 저장되므로, 반영 직후 멈춘 노드의 항목을 다시 적용해도 두 번 차감되지 않는다.
+ */
+@Entity
+@Table(name = "applied_inventory_entry")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class AppliedInventoryEntry implements Persistable<String> {
+
+    @Id
+    @Column(name = "entry_id", length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedDate;
+
+    public AppliedInventoryEntry(String id) {
+        this.id = id;
+        this.appliedDate = LocalDateTime.now();
+    }
+
+    // 항상 새로 추가하는 기록이므로 저장 전에 조회하지 않는다.
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
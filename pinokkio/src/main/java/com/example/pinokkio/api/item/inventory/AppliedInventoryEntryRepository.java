@@ -0,0 +1,20 @@
+package com.example.pinokkio.api.item.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface AppliedInventoryEntryRepository extends JpaRepository<AppliedInventoryEntry, String> {
+
+    /**
+     * 오래된 반영 기록을 지운다.
+     * @param before 이 시각 전에 반영된 기록
+     * @return 지운 기록 수
+     */
+    @Modifying
+    @Query("DELETE FROM AppliedInventoryEntry e WHERE e.appliedDate < :before")
+    int deleteAppliedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,206 @@
+package com.example.pinokkio.api.item.inventory;
+
+import com.example.pinokkio.api.order.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 재고 저널을 DB 에 뒤이어 반영한다. (write-behind)
+ * <p>
+ * 저널 항목은 처리 중 목록(inventory:journal:processing)으로 옮긴 뒤 DB 에 반영하고, 커밋한 뒤에 처리 중 목록에서 지운다.
+ * 반영 도중 노드가 멈추면 남은 항목을 다음 실행이 먼저 다시 적용하며, 이미 커밋된 항목은 반영 기록으로 걸러진다.
+ * 여러 노드 중 한 곳만 Redis 잠금을 잡고 반영한다.
+ * <p>
+ * 반영하기 전에 reservation-timeout 이 지나도록 확정도 되돌리기도 되지 않은 예약을 정리한다.
+ * 예약한 노드가 주문 트랜잭션 도중이나 커밋 직후에 멈춘 경우로, 주문이 저장되어 있으면 확정하고 없으면 재고로 되돌린다.
+ */
+@Component
+@Slf4j
+public class InventoryFlusher {
+
+    private static final String PROCESSING_KEY = InventoryStore.JOURNAL_KEY + ":processing";
+    private static final String LOCK_KEY = InventoryStore.JOURNAL_KEY + ":lock";
+    private static final Duration LOCK_TTL = Duration.ofSeconds(30);
+    // 다시 적용될 수 있는 항목보다 충분히 오래 반영 기록을 남긴다.
+    private static final Duration APPLIED_RETENTION = Duration.ofDays(1);
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final InventoryJournalWriter journalWriter;
+    private final InventoryStore inventoryStore;
+    private final OrderRepository orderRepository;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "inventory-flusher"));
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Timer flushTimer;
+    private final Counter appliedCounter;
+    private final Counter failureCounter;
+    private final Counter reapedConfirmedCounter;
+    private final Counter reapedReleasedCounter;
+
+    private long lastPrunedAt;
+
+    @Value("${inventory.redis.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.redis.flush-interval:1s}")
+    private Duration flushInterval;
+
+    // 한 트랜잭션에 반영할 최대 저널 항목 수
+    @Value("${inventory.redis.batch-size:500}")
+    private int batchSize;
+
+    // 이 시간이 지나도록 남은 예약은 예약한 노드가 멈춘 것으로 보고 정리한다. (주문 트랜잭션 최대 시간보다 길어야 한다)
+    @Value("${inventory.redis.reservation-timeout:5m}")
+    private Duration reservationTimeout;
+
+    public InventoryFlusher(StringRedisTemplate stringRedisTemplate,
+                            InventoryJournalWriter journalWriter,
+                            InventoryStore inventoryStore,
+                            OrderRepository orderRepository,
+                            MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.journalWriter = journalWriter;
+        this.inventoryStore = inventoryStore;
+        this.orderRepository = orderRepository;
+        this.flushTimer = Timer.builder("inventory.flush")
+                .description("재고 저널 한 묶음을 DB 에 반영하는 시간")
+                .register(meterRegistry);
+        this.appliedCounter = meterRegistry.counter("inventory.flush.entries");
+        this.failureCounter = meterRegistry.counter("inventory.flush.failures");
+        this.reapedConfirmedCounter = meterRegistry.counter("inventory.reservation.reaped", "result", "confirmed");
+        this.reapedReleasedCounter = meterRegistry.counter("inventory.reservation.reaped", "result", "released");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long intervalMillis = Math.max(1, flushInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Inventory write-behind flusher started. (every {} ms, node: {})", intervalMillis, nodeId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(LOCK_TTL.toSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (enabled) {
+            // 종료 전까지 쌓인 항목을 반영한다. 남은 항목은 다른 노드나 다음 기동이 반영한다.
+            flush();
+        }
+    }
+
+    void flush() {
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, nodeId, LOCK_TTL))) {
+                return;
+            }
+            try {
+                reapExpiredReservations();
+                // 꽉 찬 묶음이면 밀린 항목이 더 있으므로 이어서 반영한다.
+                while (flushBatch() >= batchSize) {
+                    stringRedisTemplate.expire(LOCK_KEY, LOCK_TTL);
+                }
+                pruneIfDue();
+            } finally {
+                if (nodeId.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                    stringRedisTemplate.delete(LOCK_KEY);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 항목은 저널이나 처리 중 목록에 남아 있으므로 다음 실행이 다시 반영한다.
+            failureCounter.increment();
+            log.warn("Failed to flush inventory journal: {}", e.getMessage());
+        }
+    }
+
+    private void reapExpiredReservations() {
+        long cutoff = System.currentTimeMillis() - reservationTimeout.toMillis();
+        Set<String> expired = stringRedisTemplate.opsForZSet()
+                .rangeByScore(InventoryStore.PENDING_KEY, 0, cutoff, 0, batchSize);
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        for (String member : expired) {
+            PendingReservation reservation;
+            try {
+                reservation = PendingReservation.parse(member);
+            } catch (RuntimeException e) {
+                log.error("Dropping malformed inventory reservation '{}': {}", member, e.getMessage());
+                stringRedisTemplate.opsForZSet().remove(InventoryStore.PENDING_KEY, member);
+                continue;
+            }
+            // 확정과 되돌리기는 예약 대기 집합에서 지운 쪽만 적용되므로, 그 사이 원래 노드가 처리했으면 아무것도 하지 않는다.
+            if (orderRepository.existsById(reservation.getOrderId())) {
+                if (inventoryStore.confirm(reservation)) {
+                    reapedConfirmedCounter.increment();
+                }
+            } else if (inventoryStore.release(reservation)) {
+                reapedReleasedCounter.increment();
+            }
+        }
+        log.warn("Reaped {} inventory reservations older than {}.", expired.size(), reservationTimeout);
+    }
+
+    // 반영한 항목 수 (처리 중 목록에 남아 있던 항목 포함)
+    private int flushBatch() {
+        ListOperations<String, String> lists = stringRedisTemplate.opsForList();
+
+        // 이전 실행이 반영 도중 멈춘 항목부터 다시 적용한다. (오래된 항목이 목록 끝에 있다)
+        List<String> leftovers = lists.range(PROCESSING_KEY, 0, -1);
+        List<String> entries = new ArrayList<>(leftovers == null ? List.of() : leftovers);
+        Collections.reverse(entries);
+        while (entries.size() < batchSize) {
+            String entry = lists.rightPopAndLeftPush(InventoryStore.JOURNAL_KEY, PROCESSING_KEY);
+            if (entry == null) {
+                break;
+            }
+            entries.add(entry);
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        int applied = flushTimer.record(() -> journalWriter.apply(entries));
+        appliedCounter.increment(applied);
+        // 커밋한 항목은 처리 중 목록의 끝부분이다.
+        lists.trim(PROCESSING_KEY, 0, -(entries.size() + 1L));
+        return entries.size();
+    }
+
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPrunedAt < PRUNE_INTERVAL.toMillis()) {
+            return;
+        }
+        lastPrunedAt = now;
+        int pruned = journalWriter.pruneApplied(LocalDateTime.now().minus(APPLIED_RETENTION));
+        log.debug("Pruned {} applied inventory journal records.", pruned);
+    }
+}
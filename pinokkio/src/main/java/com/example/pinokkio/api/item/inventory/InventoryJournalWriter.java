@@ -0,0 +1,125 @@
+package com.example.pinokkio.api.item.inventory;
+
+import com.example.pinokkio.api.item.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Redis 재고 저널 항목을 DB item.amount 에 반영한다.
+ * <p>
+ * 저널 항목 형식은 "{항목 식별자}|{연산}|{아이템 식별자}:{수량},..." 이고, 연산은 다음과 같다.
+ * '-' 커밋된 주문의 예약으로 차감 (항목 식별자는 주문 식별자) / '=' 포스가 수정한 재고로 설정
+ * 롤백된 주문의 예약은 저널에 들어오지 않는다.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryJournalWriter {
+
+    private final ItemRepository itemRepository;
+    private final AppliedInventoryEntryRepository appliedInventoryEntryRepository;
+
+    /**
+     * 저널 항목을 순서대로 합쳐 아이템마다 UPDATE 한 번으로 반영한다.
+     * 이미 반영한 항목은 건너뛴다.
+     *
+     * @param entries 저널 항목 (오래된 것부터)
+     * @return 새로 반영한 항목 수
+     */
+    public int apply(List<String> entries) {
+        List<JournalEntry> parsed = entries.stream()
+                .map(JournalEntry::parse)
+                .filter(Objects::nonNull)
+                .toList();
+        Set<String> applied = appliedInventoryEntryRepository
+                .findAllById(parsed.stream().map(entry -> entry.id).toList())
+                .stream()
+                .map(AppliedInventoryEntry::getId)
+                .collect(Collectors.toSet());
+
+        // 아이템 식별자 순으로 UPDATE 하여 주문 트랜잭션과 잠금 순서를 맞춘다.
+        Map<UUID, PendingChange> changes = new TreeMap<>();
+        List<AppliedInventoryEntry> newlyApplied = new ArrayList<>();
+        for (JournalEntry entry : parsed) {
+            if (!applied.add(entry.id)) {
+                continue;
+            }
+            entry.lines.forEach((itemId, quantity) ->
+                    changes.computeIfAbsent(itemId, id -> new PendingChange()).add(entry.operation, quantity));
+            newlyApplied.add(new AppliedInventoryEntry(entry.id));
+        }
+
+        changes.forEach((itemId, change) -> {
+            if (change.absolute != null) {
+                itemRepository.setAmount(itemId, change.absolute - change.delta);
+            } else if (change.delta != 0) {
+                itemRepository.subtractAmount(itemId, change.delta);
+            }
+        });
+        appliedInventoryEntryRepository.saveAll(newlyApplied);
+        return newlyApplied.size();
+    }
+
+    /**
+     * @param before 이 시각 전에 반영된 기록을 지운다
+     */
+    public int pruneApplied(LocalDateTime before) {
+        return appliedInventoryEntryRepository.deleteAppliedBefore(before);
+    }
+
+    // 한 아이템에 쌓인 변경. '=' 이후의 차감만 남긴다.
+    private static class PendingChange {
+        private Integer absolute;
+        private int delta;
+
+        private void add(char operation, int quantity) {
+            switch (operation) {
+                case '-' -> delta += quantity;
+                case '=' -> {
+                    absolute = quantity;
+                    delta = 0;
+                }
+                default -> throw new IllegalArgumentException("Unknown inventory operation: " + operation);
+            }
+        }
+    }
+
+    private static class JournalEntry {
+        private final String id;
+        private final char operation;
+        private final Map<UUID, Integer> lines;
+
+        private JournalEntry(String id, char operation, Map<UUID, Integer> lines) {
+            this.id = id;
+            this.operation = operation;
+            this.lines = lines;
+        }
+
+        // 읽을 수 없는 항목은 로그를 남기고 null 을 반환한다. (처리 중 목록에서 함께 지워진다)
+        private static JournalEntry parse(String raw) {
+            try {
+                String[] parts = raw.split("\\|", 3);
+                if (parts.length != 3 || parts[1].length() != 1 || "-=".indexOf(parts[1].charAt(0)) < 0) {
+                    throw new IllegalArgumentException("unexpected format");
+                }
+                Map<UUID, Integer> lines = new LinkedHashMap<>();
+                for (String line : parts[2].split(",")) {
+                    int separator = line.indexOf(':');
+                    lines.merge(UUID.fromString(line.substring(0, separator)),
+                            Integer.parseInt(line.substring(separator + 1)), Integer::sum);
+                }
+                return new JournalEntry(parts[0], parts[1].charAt(0), lines);
+            } catch (RuntimeException e) {
+                log.error("Skipping malformed inventory journal entry '{}': {}", raw, e.getMessage());
+                return null;
+            }
+        }
+    }
+}
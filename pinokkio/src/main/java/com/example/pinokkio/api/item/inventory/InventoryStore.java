@@ -0,0 +1,215 @@
+package com.example.pinokkio.api.item.inventory;
+
+import com.example.pinokkio.api.item.Item;
+import com.example.pinokkio.exception.domain.item.ItemAmountException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 포스별 Redis 해시(inventory:{posId})에 둔 아이템 재고.
+ * <p>
+ * 주문은 Lua 스크립트 한 번으로 장바구니 전체를 예약하므로, 모든 주문이 담는 인기 아이템도 DB 행 잠금을 기다리지 않는다.
+ * 예약은 주문 식별자와 함께 예약 대기 집합(inventory:pending)에 남았다가, 주문이 커밋되면 확정되어
+ * 쓰기 지연 저널(inventory:journal)에 들어가고 롤백되면 재고로 되돌아간다.
+ * 확정이나 되돌리기 전에 노드가 멈추면 {@link InventoryFlusher} 가 오래된 예약을 주문 존재 여부에 따라 정리한다.
+ * 저널은 {@link InventoryFlusher} 가 DB item.amount 에 반영한다.
+ * 해시에 없는 아이템은 처음 예약할 때 DB 재고로 채운다.
+ */
+@Component
+@Slf4j
+public class InventoryStore {
+
+    static final String JOURNAL_KEY = "inventory:journal";
+    static final String PENDING_KEY = "inventory:pending";
+    private static final String STOCK_KEY_PREFIX = "inventory:";
+    private static final String RESERVED_KEY_PREFIX = "inventory:reserved:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final DefaultRedisScript<String> reserveScript;
+    private final DefaultRedisScript<Long> confirmScript;
+    private final DefaultRedisScript<Long> releaseScript;
+    private final DefaultRedisScript<Long> setScript;
+    private final Counter reservedCounter;
+    private final Counter insufficientCounter;
+
+    @Value("${inventory.redis.enabled:false}")
+    private boolean enabled;
+
+    public InventoryStore(StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.reserveScript = script("redis/inventory-reserve.lua", String.class);
+        this.confirmScript = script("redis/inventory-confirm.lua", Long.class);
+        this.releaseScript = script("redis/inventory-release.lua", Long.class);
+        this.setScript = script("redis/inventory-set.lua", Long.class);
+        this.reservedCounter = meterRegistry.counter("inventory.reservation", "result", "reserved");
+        this.insufficientCounter = meterRegistry.counter("inventory.reservation", "result", "insufficient");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 장바구니 전체의 재고를 주문 식별자로 예약한다.
+     * 호출한 트랜잭션이 커밋되면 예약을 확정하여 저널에 남기고, 커밋되지 않으면 예약을 되돌린다.
+     *
+     * @param orderId    저장한 주문의 식별자 (저널 항목 식별자로 쓰여 같은 주문은 한 번만 반영된다)
+     * @param posId      포스 식별자
+     * @param quantities 아이템별 주문 수량
+     * @param items      주문한 아이템 (해시에 없는 아이템의 초기 재고로 쓴다)
+     * @throws ItemAmountException 재고가 부족한 아이템이 있으면 (아무것도 예약하지 않는다)
+     */
+    public void reserve(UUID orderId, UUID posId, Map<UUID, Integer> quantities, Map<UUID, Item> items) {
+        PendingReservation reservation = new PendingReservation(orderId, posId, quantities);
+        List<String> args = new ArrayList<>(2 + quantities.size() * 3);
+        args.add(reservation.member());
+        args.add(String.valueOf(System.currentTimeMillis()));
+        quantities.forEach((itemId, quantity) -> {
+            args.add(itemId.toString());
+            args.add(String.valueOf(quantity));
+            args.add(String.valueOf(items.get(itemId).getAmount()));
+        });
+
+        String insufficientItem = stringRedisTemplate.execute(
+                reserveScript, List.of(stockKey(posId), PENDING_KEY, reservedKey(posId)), args.toArray());
+        if (insufficientItem != null) {
+            insufficientCounter.increment();
+            throw new ItemAmountException(UUID.fromString(insufficientItem));
+        }
+        reservedCounter.increment();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            confirm(reservation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                confirm(reservation);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(reservation);
+                }
+            }
+        });
+    }
+
+    /**
+     * 예약을 확정하여 저널에 남긴다. 실패해도 예약 대기 집합에 남아 있으므로 InventoryFlusher 가 다시 확정한다.
+     *
+     * @return 이번 호출로 확정했으면 true
+     */
+    boolean confirm(PendingReservation reservation) {
+        List<String> args = new ArrayList<>(2 + reservation.getQuantities().size() * 2);
+        args.add(reservation.member());
+        args.add(reservation.journalEntry());
+        addQuantities(args, reservation);
+        try {
+            return Long.valueOf(1).equals(stringRedisTemplate.execute(confirmScript,
+                    List.of(PENDING_KEY, JOURNAL_KEY, reservedKey(reservation.getPosId())), args.toArray()));
+        } catch (DataAccessException e) {
+            log.error("Failed to confirm inventory reservation for order {}: {}", reservation.getOrderId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 예약을 재고로 되돌린다. 실패해도 예약 대기 집합에 남아 있으므로 InventoryFlusher 가 다시 되돌린다.
+     *
+     * @return 이번 호출로 되돌렸으면 true
+     */
+    boolean release(PendingReservation reservation) {
+        List<String> args = new ArrayList<>(1 + reservation.getQuantities().size() * 2);
+        args.add(reservation.member());
+        addQuantities(args, reservation);
+        try {
+            return Long.valueOf(1).equals(stringRedisTemplate.execute(releaseScript,
+                    List.of(stockKey(reservation.getPosId()), PENDING_KEY, reservedKey(reservation.getPosId())),
+                    args.toArray()));
+        } catch (DataAccessException e) {
+            log.error("Failed to release inventory reservation for order {}: {}", reservation.getOrderId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 포스가 수정한 재고를 트랜잭션 커밋 뒤에 Redis 에 쓴다.
+     */
+    public void setAmountAfterCommit(UUID posId, UUID itemId, int amount) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> stringRedisTemplate.execute(setScript,
+                List.of(stockKey(posId), JOURNAL_KEY, reservedKey(posId)),
+                UUID.randomUUID().toString(), itemId.toString(), String.valueOf(amount)));
+    }
+
+    /**
+     * 삭제한 아이템의 재고를 트랜잭션 커밋 뒤에 Redis 에서 지운다.
+     */
+    public void removeAfterCommit(UUID posId, UUID itemId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> stringRedisTemplate.opsForHash().delete(stockKey(posId), itemId.toString()));
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (DataAccessException e) {
+                log.error("Failed to update Redis inventory: {}", e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            guarded.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                guarded.run();
+            }
+        });
+    }
+
+    private static void addQuantities(List<String> args, PendingReservation reservation) {
+        reservation.getQuantities().forEach((itemId, quantity) -> {
+            args.add(itemId.toString());
+            args.add(String.valueOf(quantity));
+        });
+    }
+
+    private static String stockKey(UUID posId) {
+        return STOCK_KEY_PREFIX + posId;
+    }
+
+    private static String reservedKey(UUID posId) {
+        return RESERVED_KEY_PREFIX + posId;
+    }
+
+    private static <T> DefaultRedisScript<T> script(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(path));
+        script.setResultType(resultType);
+        return script;
+    }
+}
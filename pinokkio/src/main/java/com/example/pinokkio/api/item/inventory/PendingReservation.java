@@ -0,0 +1,65 @@
+package com.example.pinokkio.api.item.inventory;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 트랜잭션이 끝나기를 기다리는 재고 예약.
+ * <p>
+ * 예약 대기 집합(inventory:pending)에 "{주문 식별자}|{포스 식별자}|{아이템 식별자}:{수량},..." 형식으로 들어가며,
+ * 주문이 커밋되면 확정되어 주문 식별자를 항목 식별자로 하는 저널 항목이 되고, 롤백되면 재고로 되돌아간다.
+ */
+@Getter
+class PendingReservation {
+
+    private final UUID orderId;
+    private final UUID posId;
+    private final Map<UUID, Integer> quantities;
+
+    PendingReservation(UUID orderId, UUID posId, Map<UUID, Integer> quantities) {
+        this.orderId = orderId;
+        this.posId = posId;
+        this.quantities = quantities;
+    }
+
+    /**
+     * @return 예약 대기 집합의 멤버
+     */
+    String member() {
+        return orderId + "|" + posId + "|" + lines();
+    }
+
+    /**
+     * @return 확정된 예약의 차감 저널 항목 (같은 주문은 한 번만 반영된다)
+     */
+    String journalEntry() {
+        return orderId + "|-|" + lines();
+    }
+
+    /**
+     * @throws IllegalArgumentException 형식이 맞지 않으면
+     */
+    static PendingReservation parse(String member) {
+        String[] parts = member.split("\\|", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("unexpected format");
+        }
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        for (String line : parts[2].split(",")) {
+            int separator = line.indexOf(':');
+            quantities.merge(UUID.fromString(line.substring(0, separator)),
+                    Integer.parseInt(line.substring(separator + 1)), Integer::sum);
+        }
+        return new PendingReservation(UUID.fromString(parts[0]), UUID.fromString(parts[1]), quantities);
+    }
+
+    private String lines() {
+        return quantities.entrySet().stream()
+                .map(line -> line.getKey() + ":" + line.getValue())
+                .collect(Collectors.joining(","));
+    }
+}
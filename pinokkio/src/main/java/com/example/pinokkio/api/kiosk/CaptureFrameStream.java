@@ -0,0 +1,196 @@
+package com.example.pinokkio.api.kiosk;
+
+import com.example.pinokkio.api.customer.FaceAnalysisCoalescer;
+import com.example.pinokkio.api.customer.FaceAnalysisService;
+import com.example.pinokkio.api.customer.dto.response.FrameAnalysis;
+import com.example.pinokkio.api.customer.sse.SSEService;
+import com.example.pinokkio.exception.domain.customer.FaceAnalysisUnavailableException;
+import com.example.pinokkio.grpc.CaptureFrame;
+import com.example.pinokkio.grpc.CaptureImagesResponse;
+import io.grpc.Deadline;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * StreamCaptureImages 요청 하나의 수신 상태.
+ * <p>
+ * 프레임은 한 번에 한 장만 요청(request(1))하여 분석이 끝난 뒤에 다음 프레임을 받는다.
+ * 분석 결과의 det_score 가 confidentScore 이상이면 남은 프레임을 기다리지 않고 응답하여 스트림을 종료하고,
+ * 키오스크가 먼저 전송을 끝내면 지금까지 가장 점수가 높은 얼굴로 고객을 찾는다.
+ * 분석 서버를 사용할 수 없으면 바로 응답하고 인식을 건너뛴다.
+ * 스트림은 선택한 얼굴로 고객 찾기가 끝날 때까지 {@link FaceAnalysisCoalescer} 의 키오스크 실행 자리를 차지하며,
+ * 프레임마다 포스 동시 분석 한도를 적용받는다.
+ */
+@Slf4j
+class CaptureFrameStream implements StreamObserver<CaptureFrame> {
+
+    private final FaceAnalysisService faceAnalysisService;
+    private final FaceAnalysisCoalescer faceAnalysisCoalescer;
+    private final SSEService sseService;
+    private final ServerCallStreamObserver<CaptureImagesResponse> responseObserver;
+    private final Deadline streamDeadline;
+    private final double confidentScore;
+
+    private UUID kioskId;
+    private FrameAnalysis best;
+    private int received;
+    private boolean inFlight;
+    private boolean admitted;
+    private boolean clientDone;
+    private boolean finished;
+
+    CaptureFrameStream(FaceAnalysisService faceAnalysisService,
+                       FaceAnalysisCoalescer faceAnalysisCoalescer,
+                       SSEService sseService,
+                       ServerCallStreamObserver<CaptureImagesResponse> responseObserver,
+                       Deadline streamDeadline,
+                       double confidentScore) {
+        this.faceAnalysisService = faceAnalysisService;
+        this.faceAnalysisCoalescer = faceAnalysisCoalescer;
+        this.sseService = sseService;
+        this.responseObserver = responseObserver;
+        this.streamDeadline = streamDeadline;
+        this.confidentScore = confidentScore;
+
+        responseObserver.disableAutoRequest();
+        responseObserver.setOnCancelHandler(this::onCancel);
+        responseObserver.request(1);
+    }
+
+    @Override
+    public void onNext(CaptureFrame frame) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            if (kioskId == null) {
+                kioskId = UUID.fromString(frame.getKioskId());
+                // 진행 중인 분석이 대기 상태 해제를 보내므로 여기서는 응답만 한다.
+                if (!faceAnalysisCoalescer.startStream(kioskId)) {
+                    log.info("Rejecting streamed frames from kiosk {}. Analysis already in progress.", kioskId);
+                    reply(false, "Face analysis is busy. Please try again.");
+                    return;
+                }
+                admitted = true;
+                log.info("Receiving streamed frames from kiosk {}.", kioskId);
+                sseService.sendWaitingEvent(kioskId, true);
+            }
+            received++;
+            inFlight = true;
+        }
+        faceAnalysisCoalescer.analyzeFrame(kioskId, frame.getImage(), faceAnalysisService.deadlineFor(streamDeadline))
+                .whenComplete(this::onFrameAnalyzed);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.warn("Frame stream from kiosk {} failed: {}", kioskId, t.getMessage());
+        onCancel();
+    }
+
+    @Override
+    public void onCompleted() {
+        synchronized (this) {
+            clientDone = true;
+            // 분석 중인 프레임이 있으면 분석이 끝난 뒤 마무리한다.
+            if (finished || inFlight) {
+                return;
+            }
+            finish();
+        }
+    }
+
+    private void onFrameAnalyzed(FrameAnalysis analysis, Throwable error) {
+        synchronized (this) {
+            inFlight = false;
+            if (finished) {
+                return;
+            }
+            if (error != null) {
+                if (error.getCause() instanceof TaskRejectedException || error instanceof TaskRejectedException) {
+                    reply(false, "Face analysis is busy. Please try again.");
+                    sseService.sendWaitingEvent(kioskId, false);
+                    return;
+                }
+                if (error.getCause() instanceof FaceAnalysisUnavailableException unavailable) {
+                    reply(false, "Face analysis unavailable. Continue without recognition.");
+                    faceAnalysisService.skipRecognition(kioskId, unavailable.getReason());
+                    sseService.sendWaitingEvent(kioskId, false);
+                    return;
+                }
+                log.warn("Frame {} analysis failed for kiosk {}: {}", received, kioskId, error.getMessage());
+            } else if (analysis.isFace() && (best == null || analysis.getDetScore() > best.getDetScore())) {
+                best = analysis;
+            }
+
+            if ((best != null && best.getDetScore() >= confidentScore) || clientDone) {
+                finish();
+            } else {
+                responseObserver.request(1);
+            }
+        }
+    }
+
+    private void onCancel() {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            markFinished();
+        }
+        if (kioskId != null) {
+            sseService.sendWaitingEvent(kioskId, false);
+        }
+    }
+
+    // 호출 시 this 의 잠금을 잡고 있어야 한다.
+    private void finish() {
+        if (best == null) {
+            log.info("No valid faces detected in {} frames from kiosk {}.", received, kioskId);
+            reply(false, "No valid faces detected in any of the images");
+            // 프레임 없이 끝난 스트림은 알릴 키오스크가 없다.
+            if (kioskId != null) {
+                sseService.sendWaitingEvent(kioskId, false);
+            }
+            return;
+        }
+
+        log.info("Face selected from kiosk {} after {} frames. det_score: {}", kioskId, received, best.getDetScore());
+        CompletableFuture<Void> completion = faceAnalysisService.submitCompletion(kioskId, best.getResult());
+        if (admitted) {
+            // 키오스크 실행 자리는 고객 찾기가 끝난 뒤에 돌려준다. (그 전에 대기 중인 캡처가 시작되지 않게 한다)
+            admitted = false;
+            completion.whenComplete((ignored, error) -> faceAnalysisCoalescer.endStream(kioskId));
+        }
+        boolean accepted = !completion.isCompletedExceptionally();
+        reply(accepted, accepted
+                ? "Face recognized after " + received + " frames"
+                : "Face analysis is busy. Please try again.");
+    }
+
+    // 호출 시 this 의 잠금을 잡고 있어야 한다. 차지한 키오스크 실행 자리를 한 번만 돌려준다.
+    private void markFinished() {
+        finished = true;
+        if (admitted) {
+            admitted = false;
+            faceAnalysisCoalescer.endStream(kioskId);
+        }
+    }
+
+    private void reply(boolean success, String message) {
+        markFinished();
+        if (responseObserver.isCancelled()) {
+            return;
+        }
+        responseObserver.onNext(CaptureImagesResponse.newBuilder()
+                .setSuccess(success)
+                .setMessage(message)
+                .build());
+        responseObserver.onCompleted();
+    }
+}
@@ -1,27 +1,26 @@
 package com.example.pinokkio.api.kiosk;
 
+import com.example.pinokkio.api.customer.FaceAnalysisCoalescer;
 import com.example.pinokkio.api.customer.FaceAnalysisService;
+import com.example.pinokkio.api.customer.embedding.KioskRecognitionCache;
 import com.example.pinokkio.api.customer.sse.SSEService;
 import com.example.pinokkio.grpc.*;
-import com.google.protobuf.ByteString;
 import io.grpc.*;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Service
-@Transactional
 @RequiredArgsConstructor
 @Slf4j
 public class KioskHardwareService extends KioskServiceGrpc.KioskServiceImplBase {
@@ -32,9 +31,15 @@ public class KioskHardwareService extends KioskServiceGrpc.KioskServiceImplBase
 
     private Server grpcServer;
 
+    // 스트리밍 캡처에서 이 점수 이상의 얼굴이 나오면 남은 프레임을 받지 않는다.
+    @Value("${face.analysis.stream.confident-score:0.8}")
+    private double confidentScore;
+
     private final SSEService sseService;
     private final FaceAnalysisService faceAnalysisService;
+    private final FaceAnalysisCoalescer faceAnalysisCoalescer;
     private final KioskService kioskService;
+    private final KioskRecognitionCache kioskRecognitionCache;
 
     // gRPC 서버를 시작하는 메서드입니다.
     @PostConstruct
@@ -65,39 +70,43 @@ public class KioskHardwareService extends KioskServiceGrpc.KioskServiceImplBase
         }
     }
 
+    /**
+     * 키오스크가 보낸 이미지를 분석 실행기에 넘기고 바로 응답한다.
+     * 분석 결과는 gRPC 응답이 아니라 SSE 로 전달된다.
+     */
     @Override
     public void captureImages(CaptureImagesRequest request, StreamObserver<CaptureImagesResponse> responseObserver) {
         UUID kioskId = UUID.fromString(request.getKioskId());
-        log.info("Received captured images from kiosk {}. Initiating image analysis.", kioskId);
-
-        sseService.sendWaitingEvent(true);
+        log.info("Received captured images from kiosk {}. Submitting image analysis.", kioskId);
 
-        List<String> base64Images = request.getImagesList().stream()
-                .map(ByteString::toStringUtf8)
-                .collect(Collectors.toList());
+        sseService.sendWaitingEvent(kioskId, true);
 
-        try {
-            faceAnalysisService.analyzeImages(kioskId, base64Images);
-            log.info("Image analysis completed successfully for kiosk: {}", kioskId);
+        // 응답은 바로 보내지만, 키오스크가 정한 마감 시간은 인식 결과를 기다리는 시간으로 그대로 적용한다.
+        Deadline deadline = faceAnalysisService.deadlineFor(Context.current().getDeadline());
 
-            CaptureImagesResponse response = CaptureImagesResponse.newBuilder()
-                    .setSuccess(true)
-                    .setMessage("Images analyzed successfully")
-                    .build();
+        // 같은 키오스크의 분석이 진행 중이면 최신 캡처 한 건만 대기시킨다.
+        boolean accepted = faceAnalysisCoalescer.submit(kioskId, request.getImagesList(), deadline);
+        CaptureImagesResponse response = CaptureImagesResponse.newBuilder()
+                .setSuccess(accepted)
+                .setMessage(accepted ? "Images accepted for analysis" : "Face analysis is busy. Please try again.")
+                .build();
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
 
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
-        } catch (Exception e) {
-            log.error("Error during image analysis for kiosk: {}", kioskId, e);
-            CaptureImagesResponse response = CaptureImagesResponse.newBuilder()
-                    .setSuccess(false)
-                    .setMessage("Error during image analysis: " + e.getMessage())
-                    .build();
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
-        } finally {
-            sseService.sendWaitingEvent(false);
-        }
+    /**
+     * 키오스크가 프레임을 한 장씩 보내는 스트리밍 캡처.
+     * 충분히 확실한 얼굴이 나오면 남은 프레임을 받지 않고 응답하며, 분석 결과는 SSE 로 전달된다.
+     */
+    @Override
+    public StreamObserver<CaptureFrame> streamCaptureImages(StreamObserver<CaptureImagesResponse> responseObserver) {
+        return new CaptureFrameStream(
+                faceAnalysisService,
+                faceAnalysisCoalescer,
+                sseService,
+                (ServerCallStreamObserver<CaptureImagesResponse>) responseObserver,
+                Context.current().getDeadline(),
+                confidentScore);
     }
 
     // 키오스크의 밝기를 조절하는 메서드입니다.
@@ -135,7 +144,8 @@ public class KioskHardwareService extends KioskServiceGrpc.KioskServiceImplBase
             try {
                 stub.resetKiosk(request);
                 log.info("Kiosk reset successful: {}", kioskId);
-                sseService.sendWaitingEvent(false);
+                kioskRecognitionCache.invalidate(UUID.fromString(kioskId));
+                sseService.sendWaitingEvent(UUID.fromString(kioskId), false);
             } catch (StatusRuntimeException e) {
                 log.error("Error resetting kiosk: {}", kioskId, e);
             } finally {
@@ -158,10 +168,10 @@ public class KioskHardwareService extends KioskServiceGrpc.KioskServiceImplBase
         try {
             stub.sendControlSignal(request);
             log.info("Control signal sent successfully: {} to kiosk: {}", signal, kioskId);
-            sseService.sendWaitingEvent(true);
+            sseService.sendWaitingEvent(UUID.fromString(kioskId), true);
         } catch (StatusRuntimeException e) {
             log.error("Error sending control signal: {} to kiosk: {}", signal, kioskId, e);
-            sseService.sendWaitingEvent(false);
+            sseService.sendWaitingEvent(UUID.fromString(kioskId), false);
         } finally {
             channel.shutdown();
         }
@@ -0,0 +1,31 @@
+package com.example.pinokkio.api.kiosk;
+
+import com.example.pinokkio.exception.domain.pos.PosNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 키오스크가 속한 포스 식별자를 캐시한다.
+ * 키오스크의 포스는 등록 후 바뀌지 않으므로 요청마다 조회하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class KioskPosCache {
+
+    private final KioskRepository kioskRepository;
+
+    private final Map<UUID, UUID> posIdByKiosk = new ConcurrentHashMap<>();
+
+    /**
+     * @param kioskId 키오스크 식별자
+     * @return 키오스크가 속한 포스 식별자
+     */
+    public UUID getPosId(UUID kioskId) {
+        return posIdByKiosk.computeIfAbsent(kioskId, id -> kioskRepository.findPosIdById(id)
+                .orElseThrow(() -> new PosNotFoundException(id)));
+    }
+}
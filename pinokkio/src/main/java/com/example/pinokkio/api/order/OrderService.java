@@ -2,8 +2,10 @@ package com.example.pinokkio.api.order;
 
 import com.example.pinokkio.api.customer.Customer;
 import com.example.pinokkio.api.customer.CustomerRepository;
+import com.example.pinokkio.api.customer.embedding.KioskRecognitionCache;
 import com.example.pinokkio.api.item.Item;
 import com.example.pinokkio.api.item.ItemRepository;
+import com.example.pinokkio.api.item.inventory.InventoryStore;
 import com.example.pinokkio.api.kiosk.Kiosk;
 import com.example.pinokkio.api.order.dto.request.GroupOrderItemRequest;
 import com.example.pinokkio.api.order.dto.request.OrderDurationRequest;
@@ -36,6 +38,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -53,9 +56,13 @@ public class OrderService {
     private final RedisUtil redisUtil;
     private final UserService userService;
     private final SalesStatisticsService salesStatisticsService;
+    private final KioskRecognitionCache kioskRecognitionCache;
+    private final InventoryStore inventoryStore;
 
     /**
      * 주문 요청정보를 기반으로 주문을 생성한다.
+     * 아이템은 한 번에 조회하고, 재고는 조건부 UPDATE 로 차감하며, 주문 아이템은 주문과 함께 배치 insert 된다.
+     * inventory.redis.enabled 이면 재고를 Redis 에서 예약한다. ({@link InventoryStore})
      * @param dtoList   주문 요청정보
      * @return 생성된 주문 정보
      */
@@ -68,33 +75,44 @@ public class OrderService {
                 ? pos.getDummyCustomerUUID()
                 : dtoList.getCustomerId();
 
-        validateCustomer(customerId, pos.getId());
-
+        // 이미 조회한 포스로 검증하여 포스와 고객을 다시 읽지 않는다.
         Customer customer = customerRepository
                 .findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException(customerId));
+        validateCustomer(customer, pos);
+
+        // 주문 아이템을 한 번에 조회
+        List<OrderItemRequest> requests = dtoList.getOrderItems();
+        Map<UUID, Item> itemsById = itemRepository
+                .findAllById(requests.stream().map(OrderItemRequest::getItemId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
 
-        // OrderItem 리스트 생성
+        // OrderItem 리스트 생성 + 같은 아이템의 수량 합산 (아이템 식별자 순)
         List<OrderItem> orderItems = new ArrayList<>();
-        for (OrderItemRequest request : dtoList.getOrderItems()) {
-            Item item = itemRepository
-                    .findById(request.getItemId())
-                    .orElseThrow(() -> new ItemNotFoundException(request.getItemId()));
-
-            // Item 수량 체크
-            if (item.getAmount() < request.getQuantity()) {
-                throw new ItemAmountException(item.getId());
+        Map<UUID, Integer> quantityByItemId = new TreeMap<>();
+        for (OrderItemRequest request : requests) {
+            Item item = itemsById.get(request.getItemId());
+            if (item == null || !item.getPos().getId().equals(pos.getId())) {
+                throw new ItemNotFoundException(request.getItemId());
             }
+            quantityByItemId.merge(item.getId(), request.getQuantity(), Integer::sum);
+            orderItems.add(new OrderItem(null, item, customerId, request.getQuantity()));
+        }
 
-            // Item 수량 차감 + OrderItem 생성
-            item.updateAmount(-request.getQuantity());
-            OrderItem orderItem = new OrderItem(null, item, customerId, request.getQuantity());
-            orderItems.add(orderItem);
+        // Item 수량 체크 + 차감 (Redis 재고는 주문 식별자가 정해진 뒤에 예약한다)
+        if (!inventoryStore.isEnabled()) {
+            // 재고가 충분할 때만 차감되며, 하나라도 부족하면 예외로 트랜잭션 전체가 롤백된다.
+            // 동시 주문끼리 행 잠금 순서가 엇갈리지 않도록 아이템 식별자 순으로 차감한다.
+            quantityByItemId.forEach((itemId, quantity) -> {
+                if (itemRepository.decreaseAmount(itemId, quantity) == 0) {
+                    throw new ItemAmountException(itemId);
+                }
+            });
         }
 
         // Order 생성
         long totalPrice = calculateTotalPrice(orderItems);
-        updateSalesInRedis(pos.getId(), totalPrice);
 
         Order order = Order.builder()
                 .pos(pos)
@@ -103,15 +121,20 @@ public class OrderService {
                 .totalPrice(totalPrice)
                 .build();
 
-        // OrderItem 의 Order 설정 및 저장
-        orderItems.forEach(orderItem -> {
-            orderItem.updateOrder(order);
-            orderItemRepository.save(orderItem);
-        });
+        // OrderItem 의 Order 설정
+        orderItems.forEach(orderItem -> orderItem.updateOrder(order));
 
-        // Order 저장
+        // Order 저장 (OrderItem 은 cascade 로 함께 배치 insert 된다)
         Order savedOrder = orderRepository.save(order);
+        if (inventoryStore.isEnabled()) {
+            // Redis 재고에서 장바구니 전체를 한 번에 예약한다. (DB 행 잠금 없음, DB 재고는 커밋된 주문만 뒤이어 반영된다)
+            inventoryStore.reserve(savedOrder.getId(), pos.getId(), quantityByItemId, itemsById);
+        }
+        updateSalesInRedis(pos.getId(), totalPrice);
         salesStatisticsService.updateSalesStatisticsOnOrderChange(order, order.getTotalPrice());
+
+        // 주문을 마친 고객의 얼굴 인식 결과가 다음 고객에게 재사용되지 않도록 비운다.
+        kioskRecognitionCache.invalidate(currentKiosk.getId());
         return savedOrder;
     }
 
@@ -153,8 +176,12 @@ public class OrderService {
         Customer customer = customerRepository
                 .findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException(customerId));
+        validateCustomer(customer, pos);
+    }
+
+    private void validateCustomer(Customer customer, Pos pos) {
         if (!customer.getId().equals(pos.getDummyCustomerUUID()))
-            throw new NotCustomerOfPosException(customerId);
+            throw new NotCustomerOfPosException(customer.getId());
     }
 
     /**
@@ -0,0 +1,87 @@
+package com.example.pinokkio.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 비동기 작업용 실행기 설정.
+ * 실행기 상태(활성 스레드, 대기열 길이 등)는 actuator 의 executor.* 지표로 노출된다.
+ */
+@Configuration
+public class AsyncConfig {
+
+    public static final String FACE_ANALYSIS_EXECUTOR = "faceAnalysisExecutor";
+    public static final String SSE_DISPATCH_EXECUTOR = "sseDispatchExecutor";
+    public static final String SSE_CONTROL_EXECUTOR = "sseControlExecutor";
+
+    @Value("${face.analysis.executor.core-size:8}")
+    private int coreSize;
+
+    @Value("${face.analysis.executor.max-size:20}")
+    private int maxSize;
+
+    @Value("${face.analysis.executor.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${sse.dispatch.threads:32}")
+    private int sseDispatchThreads;
+
+    @Value("${sse.control.threads:2}")
+    private int sseControlThreads;
+
+    @Value("${sse.control.queue-capacity:1000}")
+    private int sseControlQueueCapacity;
+
+    /**
+     * 얼굴 분석(분석 서버 호출 + 고객 매칭) 실행기.
+     * 대기열까지 가득 차면 요청을 거절하여 호출한 gRPC 스레드가 바로 응답할 수 있게 한다.
+     */
+    @Bean(name = FACE_ANALYSIS_EXECUTOR)
+    public ThreadPoolTaskExecutor faceAnalysisExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("face-analysis-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * SSE 전송 실행기.
+     * 연결마다 최대 한 건의 전송 작업만 올라가므로 대기열 길이는 연결 수를 넘지 않는다.
+     * 느린 연결의 네트워크 쓰기는 이 스레드에서만 기다리며, 한 번의 쓰기는 server.tomcat.connection-timeout 을 넘지 못한다.
+     * 반쯤 끊긴 연결 몇 개가 스레드를 붙잡아도 나머지 전송이 이어지도록 threads 까지 필요할 때 늘리고, 쉬는 스레드는 정리한다.
+     */
+    @Bean(name = SSE_DISPATCH_EXECUTOR)
+    public ThreadPoolTaskExecutor sseDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sseDispatchThreads);
+        executor.setMaxPoolSize(sseDispatchThreads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("sse-dispatch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * SSE 제어 작업 실행기. (노드 간 중계 발행, 중계 채널 구독·해지, 멈춘 연결 종료)
+     * 클라이언트 쓰기를 하지 않으므로 전송 실행기가 멈춘 연결로 가득 차도 영향을 받지 않는다.
+     */
+    @Bean(name = SSE_CONTROL_EXECUTOR)
+    public ThreadPoolTaskExecutor sseControlExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sseControlThreads);
+        executor.setMaxPoolSize(sseControlThreads);
+        executor.setQueueCapacity(sseControlQueueCapacity);
+        executor.setThreadNamePrefix("sse-control-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.pinokkio.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 애플리케이션 로컬 캐시 설정.
+ * 모든 캐시는 크기와 TTL 로 제한되며, 적중/미스/제거 통계는 actuator 의 cache.* 지표로 노출된다.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // 분석 서버에서 받은 임베딩 문자열(내용 해시 키) -> 디코딩된 정규화 임베딩
+    public static final String EMBEDDING_VECTORS = "embeddingVectors";
+
+    @Value("${cache.embedding-vectors.max-size:1000}")
+    private long embeddingVectorsMaxSize;
+
+    @Value("${cache.embedding-vectors.ttl:10m}")
+    private Duration embeddingVectorsTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(EMBEDDING_VECTORS, Caffeine.newBuilder()
+                .maximumSize(embeddingVectorsMaxSize)
+                .expireAfterWrite(embeddingVectorsTtl)
+                .recordStats()
+                .build());
+        // 등록되지 않은 이름의 캐시는 만들지 않는다. (제한 없는 캐시 방지)
+        cacheManager.setCacheNames(List.of());
+        return cacheManager;
+    }
+
+    /**
+     * 수 KB 크기의 문자열 인자 대신 SHA-256 해시를 캐시 키로 사용한다.
+     */
+    @Bean
+    public KeyGenerator contentHashKeyGenerator() {
+        return (target, method, params) -> {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(digest.digest(String.valueOf(params[0]).getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.pinokkio.config;
 
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
@@ -9,6 +10,8 @@ import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.core5.http.config.Registry;
 import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -22,9 +25,17 @@ import java.security.NoSuchAlgorithmException;
 @Configuration
 public class RestTemplateConfig {
 
-    // RestTemplate 빈을 생성하는 메서드입니다.
+    public static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    // 응답을 기다리는 최대 시간 (ms). 분석 요청은 이보다 짧은 요청별 마감 시간이 따로 적용된다.
+    @Value("${fastapi.timeout:10000}")
+    private long responseTimeout;
+
+    /**
+     * 커넥션 풀을 둔 HTTP 클라이언트. RestTemplate 과 분석 서버 호출이 같은 풀을 쓴다.
+     */
     @Bean
-    public RestTemplate restTemplate() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+    public CloseableHttpClient pooledHttpClient() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
         // SSL 컨텍스트를 생성합니다. 여기서는 기본 설정을 사용합니다.
         SSLContext sslContext = SSLContexts.custom().build();
 
@@ -41,13 +52,20 @@ public class RestTemplateConfig {
         connectionManager.setDefaultMaxPerRoute(20); // 라우트당 최대 연결 수
 
         // HTTP 클라이언트를 생성합니다.
-        CloseableHttpClient httpClient = HttpClients.custom()
+        return HttpClients.custom()
                 .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+                        .build())
                 .build();
+    }
 
+    // RestTemplate 빈을 생성하는 메서드입니다.
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient pooledHttpClient) {
         // RestTemplate이 사용할 요청 팩토리를 생성하고 설정합니다.
-        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
-        requestFactory.setConnectTimeout(5000); // 연결 타임아웃 (5초)
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(pooledHttpClient);
+        requestFactory.setConnectTimeout(CONNECT_TIMEOUT_MILLIS); // 연결 타임아웃 (5초)
         requestFactory.setConnectionRequestTimeout(5000); // 연결 요청 타임아웃 (5초)
 
         // 설정된 요청 팩토리로 RestTemplate을 생성하고 반환합니다.
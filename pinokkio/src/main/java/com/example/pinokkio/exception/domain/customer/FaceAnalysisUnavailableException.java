@@ -0,0 +1,28 @@
+package com.example.pinokkio.exception.domain.customer;
+
+import com.example.pinokkio.exception.BaseException;
+
+import java.util.Map;
+
+/**
+ * 분석 서버를 사용할 수 없어 얼굴 인식을 건너뛰어야 하는 경우
+ * (서킷 브레이커 개방, 마감 시간 초과, 분석 서버 오류)
+ */
+public class FaceAnalysisUnavailableException extends BaseException {
+    public FaceAnalysisUnavailableException(String reason) {
+        super(
+                "FACE_ANALYSIS_UNAVAILABLE_01",
+                "얼굴 분석 서버를 사용할 수 없습니다.",
+                Map.of("reason", reason)
+        );
+    }
+
+    public FaceAnalysisUnavailableException(String reason, Throwable cause) {
+        this(reason);
+        initCause(cause);
+    }
+
+    public String getReason() {
+        return getErrors().get("reason");
+    }
+}
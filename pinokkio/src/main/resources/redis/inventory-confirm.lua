@@ -0,0 +1,15 @@
+-- 커밋된 주문의 예약을 확정하여 저널에 남긴다. 이미 확정되었거나 되돌린 예약이면 아무것도 하지 않는다.
+-- KEYS[1]: 예약 대기 집합 (inventory:pending), KEYS[2]: 쓰기 지연 저널,
+-- KEYS[3]: 포스의 아이템별 예약 대기 수량 (inventory:reserved:{posId})
+-- ARGV[1]: 예약 대기 멤버, ARGV[2]: 저널 항목 (주문 식별자|-|아이템 식별자:수량,...), 이후 아이템마다 (아이템 식별자, 수량)
+-- 반환: 확정했으면 1, 아니면 0
+if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then
+    return 0
+end
+for i = 3, #ARGV, 2 do
+    if redis.call('HINCRBY', KEYS[3], ARGV[i], -tonumber(ARGV[i + 1])) <= 0 then
+        redis.call('HDEL', KEYS[3], ARGV[i])
+    end
+end
+redis.call('LPUSH', KEYS[2], ARGV[2])
+return 1
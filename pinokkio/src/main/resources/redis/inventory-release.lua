@@ -0,0 +1,19 @@
+-- 커밋되지 않은 주문의 예약을 재고로 되돌린다. 이미 확정되었거나 되돌린 예약이면 아무것도 하지 않는다.
+-- 저널에 남지 않은 예약이므로 DB 재고는 바뀌지 않는다.
+-- 그 사이 삭제된 아이템(removeAfterCommit)은 재고를 다시 만들지 않는다.
+-- KEYS[1]: 포스 재고 해시 (inventory:{posId}), KEYS[2]: 예약 대기 집합 (inventory:pending),
+-- KEYS[3]: 포스의 아이템별 예약 대기 수량 (inventory:reserved:{posId})
+-- ARGV[1]: 예약 대기 멤버, 이후 아이템마다 (아이템 식별자, 수량)
+-- 반환: 되돌렸으면 1, 아니면 0
+if redis.call('ZREM', KEYS[2], ARGV[1]) == 0 then
+    return 0
+end
+for i = 2, #ARGV, 2 do
+    if redis.call('HEXISTS', KEYS[1], ARGV[i]) == 1 then
+        redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])
+    end
+    if redis.call('HINCRBY', KEYS[3], ARGV[i], -tonumber(ARGV[i + 1])) <= 0 then
+        redis.call('HDEL', KEYS[3], ARGV[i])
+    end
+end
+return 1
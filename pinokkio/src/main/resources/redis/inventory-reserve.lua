@@ -0,0 +1,20 @@
+-- 장바구니 전체의 재고를 예약한다. 모든 아이템을 예약하거나 하나도 예약하지 않는다.
+-- 예약은 주문 트랜잭션이 끝날 때까지 예약 대기 집합에 남고, 저널에는 확정(inventory-confirm.lua)된 뒤에 들어간다.
+-- KEYS[1]: 포스 재고 해시 (inventory:{posId}), KEYS[2]: 예약 대기 집합 (inventory:pending),
+-- KEYS[3]: 포스의 아이템별 예약 대기 수량 (inventory:reserved:{posId})
+-- ARGV[1]: 예약 대기 멤버, ARGV[2]: 예약 시각 (ms), 이후 아이템마다 (아이템 식별자, 수량, DB 재고)
+-- 반환: 재고가 부족한 첫 아이템 식별자, 모두 예약했으면 nil
+for i = 3, #ARGV, 3 do
+    local item, quantity = ARGV[i], ARGV[i + 1]
+    -- 처음 예약하는 아이템은 DB 재고로 채운다.
+    redis.call('HSETNX', KEYS[1], item, ARGV[i + 2])
+    if tonumber(redis.call('HGET', KEYS[1], item)) < tonumber(quantity) then
+        return item
+    end
+end
+for i = 3, #ARGV, 3 do
+    redis.call('HINCRBY', KEYS[1], ARGV[i], -tonumber(ARGV[i + 1]))
+    redis.call('HINCRBY', KEYS[3], ARGV[i], ARGV[i + 1])
+end
+redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+return false
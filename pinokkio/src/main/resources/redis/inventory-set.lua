@@ -0,0 +1,10 @@
+-- 포스가 수정한 재고를 그대로 쓴다. 저널에도 남겨 그 전에 확정된 차감 뒤에 DB 에 반영되게 한다.
+-- 아직 확정되지 않은 예약은 이후에 차감 항목으로 저널에 들어가므로, DB 에는 그 수량을 더한 재고로 설정한다.
+-- (확정되면 DB 도 Redis 와 같은 재고가 되고, 되돌려지면 두 곳 모두 예약 수량만큼 늘어난다)
+-- KEYS[1]: 포스 재고 해시 (inventory:{posId}), KEYS[2]: 쓰기 지연 저널,
+-- KEYS[3]: 포스의 아이템별 예약 대기 수량 (inventory:reserved:{posId})
+-- ARGV[1]: 저널 항목 식별자, ARGV[2]: 아이템 식별자, ARGV[3]: 재고
+redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+local reserved = tonumber(redis.call('HGET', KEYS[3], ARGV[2]) or '0')
+redis.call('LPUSH', KEYS[2], ARGV[1] .. '|=|' .. ARGV[2] .. ':' .. (tonumber(ARGV[3]) + reserved))
+return 1
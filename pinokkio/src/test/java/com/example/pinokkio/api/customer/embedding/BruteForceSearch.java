@@ -0,0 +1,111 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+
+import java.util.UUID;
+
+/**
+ * 모든 고객과 내적을 계산하여 인덱스 검색 결과의 기준값을 만든다.
+ */
+class BruteForceSearch {
+
+    private final SyntheticFaces faces;
+    private final boolean[] removed;
+
+    BruteForceSearch(SyntheticFaces faces) {
+        this.faces = faces;
+        this.removed = new boolean[faces.vectors.length];
+    }
+
+    void remove(int customer) {
+        removed[customer] = true;
+    }
+
+    /**
+     * 성별·나이 범위 안의 최고 유사도 고객이 임계값 이상이면 그 고객, 아니면 전체 최고 유사도 고객.
+     * (HnswFaceIndex, QuantizedFaceIndex 의 판정 기준)
+     */
+    FaceMatch flat(float[] query, Gender gender, int minAge, int maxAge, double threshold) {
+        Best all = new Best();
+        Best slice = new Best();
+        for (int i = 0; i < faces.vectors.length; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            double similarity = similarity(query, i);
+            all.offer(i, similarity);
+            if (inSlice(i, gender, minAge, maxAge)) {
+                slice.offer(i, similarity);
+            }
+        }
+        if (slice.customer >= 0 && slice.similarity >= threshold) {
+            return slice.toMatch(faces);
+        }
+        return all.customer >= 0 && all.similarity >= threshold ? all.toMatch(faces) : null;
+    }
+
+    /**
+     * 링 0(같은 성별, 나이 범위가 걸친 나이대)에서는 flat 과 같이 판정하고,
+     * 이후에는 링을 하나씩 넓히며 지금까지 본 고객 중 최고 유사도가 임계값 이상이면 멈춘다.
+     * (ExactFaceIndex 의 판정 기준)
+     */
+    FaceMatch ringed(float[] query, Gender gender, int minAge, int maxAge, double threshold) {
+        int lowBand = ExactFaceIndex.band(minAge);
+        int highBand = ExactFaceIndex.band(maxAge);
+        Best all = new Best();
+        Best slice = new Best();
+        for (int ring = 0; ring <= ExactFaceIndex.BAND_COUNT; ring++) {
+            for (int i = 0; i < faces.vectors.length; i++) {
+                if (removed[i] || ringOf(i, gender, lowBand, highBand) != ring) {
+                    continue;
+                }
+                double similarity = similarity(query, i);
+                all.offer(i, similarity);
+                if (ring == 0 && inSlice(i, gender, minAge, maxAge)) {
+                    slice.offer(i, similarity);
+                }
+            }
+            if (ring == 0 && slice.customer >= 0 && slice.similarity >= threshold) {
+                return slice.toMatch(faces);
+            }
+            if (all.customer >= 0 && all.similarity >= threshold) {
+                return all.toMatch(faces);
+            }
+        }
+        return null;
+    }
+
+    private int ringOf(int customer, Gender gender, int lowBand, int highBand) {
+        int band = ExactFaceIndex.band(faces.ages[customer]);
+        int distance = Math.max(0, Math.max(lowBand - band, band - highBand));
+        return faces.genders[customer] == gender ? distance : distance + 1;
+    }
+
+    private boolean inSlice(int customer, Gender gender, int minAge, int maxAge) {
+        return faces.genders[customer] == gender && faces.ages[customer] >= minAge && faces.ages[customer] <= maxAge;
+    }
+
+    private double similarity(float[] query, int customer) {
+        return VectorMath.dot(query, 0, faces.vectors[customer], 0, faces.dimension);
+    }
+
+    static UUID customerIdOf(FaceMatch match) {
+        return match == null ? null : match.getCustomerId();
+    }
+
+    private static class Best {
+        private int customer = -1;
+        private double similarity = Double.NEGATIVE_INFINITY;
+
+        private void offer(int candidate, double candidateSimilarity) {
+            if (candidateSimilarity > similarity) {
+                similarity = candidateSimilarity;
+                customer = candidate;
+            }
+        }
+
+        private FaceMatch toMatch(SyntheticFaces faces) {
+            return new FaceMatch(faces.customerIds[customer], similarity);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.api.customer.Customer;
+import com.example.pinokkio.api.customer.CustomerRepository;
+import com.example.pinokkio.common.type.Gender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerEmbeddingIndexTest {
+
+    private static final FaceEmbedding EMBEDDING = FaceEmbedding.normalize(new float[]{3f, -4f, 0f, 12f});
+    private static final FaceQuery QUERY = new FaceQuery(EMBEDDING.getVector(), Gender.MALE, 25, 35);
+
+    private final UUID posId = UUID.randomUUID();
+    private final UUID customerId = UUID.randomUUID();
+
+    private CustomerRepository customerRepository;
+    private CustomerIndexRelay relay;
+    private Customer customer;
+    private CustomerEmbeddingIndex index;
+    private CustomerIndexRelay.RelayListener relayListener;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        relay = mock(CustomerIndexRelay.class);
+        customer = mock(Customer.class);
+        when(customer.getId()).thenReturn(customerId);
+        when(customer.getGender()).thenReturn(Gender.MALE);
+        when(customer.getAge()).thenReturn(30);
+        when(customer.getFaceEmbedding()).thenReturn(FaceEmbeddingCodec.encodeBinary(EMBEDDING));
+
+        index = new CustomerEmbeddingIndex(
+                customerRepository, new FaceEmbeddingCodec(new ObjectMapper()), new SimpleMeterRegistry(), relay);
+        ReflectionTestUtils.setField(index, "mode", FaceIndexMode.EXACT);
+        ReflectionTestUtils.setField(index, "simd", true);
+        ReflectionTestUtils.setField(index, "refreshInterval", Duration.ofMinutes(10));
+        index.init();
+
+        ArgumentCaptor<CustomerIndexRelay.RelayListener> listener =
+                ArgumentCaptor.forClass(CustomerIndexRelay.RelayListener.class);
+        verify(relay).setListener(listener.capture());
+        relayListener = listener.getValue();
+    }
+
+    @Test
+    @DisplayName("적재 중에 삭제된 고객은 먼저 읽은 DB 스냅샷으로 되살아나지 않는다")
+    void removalDuringLoadWins() {
+        when(customerRepository.findAllByPosId(posId)).thenAnswer(invocation -> {
+            index.remove(posId, customerId);
+            return List.of(customer);
+        });
+
+        assertThat(index.findBest(posId, QUERY, 0.5)).isNull();
+    }
+
+    @Test
+    @DisplayName("등록과 삭제는 자기 인덱스에 반영하고 다른 노드에 알린다")
+    void publishesLocalChanges() {
+        when(customerRepository.findAllByPosId(posId)).thenReturn(List.of());
+
+        index.upsert(posId, customer, EMBEDDING);
+        assertThat(index.findBest(posId, QUERY, 0.5).getCustomerId()).isEqualTo(customerId);
+        verify(relay).publishUpsert(posId, customerId, Gender.MALE, 30, customer.getFaceEmbedding());
+
+        index.remove(posId, customerId);
+        assertThat(index.findBest(posId, QUERY, 0.5)).isNull();
+        verify(relay).publishRemove(posId, customerId);
+    }
+
+    @Test
+    @DisplayName("다른 노드의 등록과 삭제를 반영하고 다시 발행하지 않는다")
+    void appliesRelayedChanges() {
+        when(customerRepository.findAllByPosId(posId)).thenReturn(List.of());
+        index.forPos(posId);
+
+        relayListener.apply(posId, customerId, Gender.MALE, 30, FaceEmbeddingCodec.encodeBinary(EMBEDDING));
+        assertThat(index.findBest(posId, QUERY, 0.5).getCustomerId()).isEqualTo(customerId);
+
+        relayListener.apply(posId, customerId, null, 0, null);
+        assertThat(index.findBest(posId, QUERY, 0.5)).isNull();
+
+        verify(relay, never()).publishUpsert(any(), any(), any(), anyInt(), any());
+        verify(relay, never()).publishRemove(any(), any());
+    }
+
+    @Test
+    @DisplayName("refresh-interval 이 지난 인덱스는 DB 에서 다시 적재하여 놓친 삭제를 맞춘다")
+    void reloadsStaleIndex() {
+        when(customerRepository.findAllByPosId(posId)).thenReturn(List.of(customer));
+        assertThat(index.findBest(posId, QUERY, 0.5).getCustomerId()).isEqualTo(customerId);
+
+        when(customerRepository.findAllByPosId(posId)).thenReturn(List.of());
+        ReflectionTestUtils.setField(index, "refreshInterval", Duration.ofMillis(-1));
+
+        assertThat(index.findBest(posId, QUERY, 0.5)).isNull();
+    }
+}
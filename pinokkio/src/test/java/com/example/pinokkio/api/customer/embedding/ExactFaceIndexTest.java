@@ -0,0 +1,114 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.example.pinokkio.api.customer.embedding.BruteForceSearch.customerIdOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExactFaceIndexTest {
+
+    private static final int POPULATION = 2000;
+
+    private final SyntheticFaces faces = SyntheticFaces.normalized(POPULATION, 11);
+    private final BruteForceSearch bruteForce = new BruteForceSearch(faces);
+    private final Random random = new Random(12);
+
+    @Test
+    @DisplayName("단건 검색은 링 순서로 확장한 전체 탐색과 같은 고객을 반환한다")
+    void findBestMatchesRingedBruteForce() {
+        ExactFaceIndex index = new ExactFaceIndex();
+        faces.addTo(index);
+
+        for (FaceQuery query : queries(500)) {
+            for (double threshold : new double[]{0.2, 0.35, 0.9}) {
+                FaceMatch expected = bruteForce.ringed(
+                        query.getVector(), query.getGender(), query.getMinAge(), query.getMaxAge(), threshold);
+                FaceMatch actual = index.findBest(
+                        query.getVector(), query.getGender(), query.getMinAge(), query.getMaxAge(), threshold);
+                assertThat(customerIdOf(actual)).isEqualTo(customerIdOf(expected));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("성별·나이대가 다른 고객도 링을 넓혀 찾는다")
+    void expandsRingsAcrossGenderAndAgeBands() {
+        ExactFaceIndex index = new ExactFaceIndex();
+        faces.addTo(index);
+
+        for (int i = 0; i < 100; i++) {
+            Gender other = faces.genders[i] == Gender.MALE ? Gender.FEMALE : Gender.MALE;
+            int farAge = faces.ages[i] < 45 ? 75 : 12;
+            FaceMatch match = index.findBest(faces.revisitOf(i, 0.01), other, farAge - 2, farAge + 2, 0.9);
+            assertThat(customerIdOf(match)).isEqualTo(faces.customerIds[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("배치 검색은 요청마다 단건 검색을 한 결과와 같다")
+    void findBestBatchMatchesFindBest() {
+        ExactFaceIndex index = new ExactFaceIndex();
+        faces.addTo(index);
+
+        List<FaceQuery> queries = queries(300);
+        // 차원이 다른 요청은 매칭 없이 null 이어야 한다.
+        queries.add(new FaceQuery(new float[faces.dimension + 1], Gender.MALE, 20, 30));
+        for (double threshold : new double[]{0.2, 0.35, 0.9}) {
+            List<FaceMatch> batch = index.findBestBatch(queries, threshold);
+            assertThat(batch).hasSize(queries.size());
+            for (int q = 0; q < queries.size(); q++) {
+                FaceQuery query = queries.get(q);
+                FaceMatch single = index.findBest(
+                        query.getVector(), query.getGender(), query.getMinAge(), query.getMaxAge(), threshold);
+                assertThat(customerIdOf(batch.get(q))).isEqualTo(customerIdOf(single));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("삭제와 교체 후에도 전체 탐색과 같은 결과를 반환한다")
+    void removeAndReplaceKeepBucketsConsistent() {
+        ExactFaceIndex index = new ExactFaceIndex();
+        faces.addTo(index);
+        for (int i = 0; i < POPULATION; i += 3) {
+            index.remove(faces.customerIds[i]);
+            bruteForce.remove(i);
+        }
+        // 같은 벡터로 나이를 바꿔 다시 등록하면 다른 버킷으로 옮겨진다.
+        for (int i = 1; i < POPULATION; i += 7) {
+            if (i % 3 == 0) {
+                continue;
+            }
+            faces.ages[i] = 79 - (faces.ages[i] - 10);
+            index.upsert(faces.customerIds[i], faces.genders[i], faces.ages[i], faces.vectors[i]);
+        }
+
+        assertThat(index.size()).isEqualTo(POPULATION - (POPULATION + 2) / 3);
+        for (FaceQuery query : queries(300)) {
+            FaceMatch expected = bruteForce.ringed(
+                    query.getVector(), query.getGender(), query.getMinAge(), query.getMaxAge(), 0.35);
+            FaceMatch actual = index.findBest(
+                    query.getVector(), query.getGender(), query.getMinAge(), query.getMaxAge(), 0.35);
+            assertThat(customerIdOf(actual)).isEqualTo(customerIdOf(expected));
+        }
+    }
+
+    // 재방문 얼굴과 처음 보는 얼굴을 섞은 검색 요청
+    private List<FaceQuery> queries(int count) {
+        List<FaceQuery> queries = new ArrayList<>(count);
+        for (int q = 0; q < count; q++) {
+            int customer = random.nextInt(POPULATION);
+            float[] vector = q % 2 == 0 ? faces.revisitOf(customer, 0.05) : faces.randomVector();
+            Gender gender = random.nextBoolean() ? Gender.MALE : Gender.FEMALE;
+            int age = 10 + random.nextInt(70);
+            queries.add(new FaceQuery(vector, gender, age - 5, age + 5));
+        }
+        return queries;
+    }
+}
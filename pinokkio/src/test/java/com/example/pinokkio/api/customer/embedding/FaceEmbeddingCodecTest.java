@@ -0,0 +1,129 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class FaceEmbeddingCodecTest {
+
+    private static final float[] RAW = {3f, -4f, 0f, 12f};
+
+    @Test
+    @DisplayName("현재 형식(v2)은 정규화된 벡터와 원래 크기를 그대로 복원한다")
+    void binaryRoundTrip() {
+        FaceEmbedding embedding = FaceEmbedding.normalize(RAW);
+
+        byte[] encoded = FaceEmbeddingCodec.encodeBinary(embedding);
+        FaceEmbedding decoded = FaceEmbeddingCodec.decodeBinary(encoded);
+
+        assertThat(encoded).hasSize(FaceEmbeddingCodec.HEADER_SIZE + RAW.length * Float.BYTES);
+        assertThat(FaceEmbeddingCodec.isBinary(encoded)).isTrue();
+        assertThat(FaceEmbeddingCodec.isNormalized(encoded)).isTrue();
+        assertThat(decoded.getVector()).containsExactly(embedding.getVector());
+        assertThat(decoded.getNorm()).isEqualTo(13f);
+    }
+
+    @Test
+    @DisplayName("v1 형식은 읽는 시점에 정규화한다")
+    void readsVersion1() {
+        ByteBuffer buffer = ByteBuffer
+                .allocate(FaceEmbeddingCodec.HEADER_SIZE_V1 + RAW.length * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'F').put((byte) 'E').put((byte) 1).put((byte) 0).putInt(RAW.length);
+        for (float value : RAW) {
+            buffer.putFloat(value);
+        }
+
+        byte[] data = buffer.array();
+        FaceEmbedding decoded = FaceEmbeddingCodec.decodeBinary(data);
+
+        assertThat(FaceEmbeddingCodec.isNormalized(data)).isFalse();
+        assertNormalizedRaw(decoded);
+    }
+
+    @Test
+    @DisplayName("정규화 플래그가 없는 v2 형식은 읽는 시점에 정규화한다")
+    void normalizesUnflaggedVersion2() {
+        byte[] data = header((byte) 2, RAW.length, RAW.length * Float.BYTES);
+        data[3] = 0;
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).position(FaceEmbeddingCodec.HEADER_SIZE)
+                .slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(RAW);
+
+        assertNormalizedRaw(FaceEmbeddingCodec.decodeBinary(data));
+    }
+
+    @Test
+    @DisplayName("기존 JSON 형식(따옴표로 감싼 배열)을 읽고, JSON 쓰기 설정에서도 같은 값으로 왕복한다")
+    void legacyJsonRoundTrip() {
+        FaceEmbeddingCodec codec = new FaceEmbeddingCodec(new ObjectMapper());
+        byte[] legacy = "\"[3.0,-4.0,0.0,12.0]\"".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(FaceEmbeddingCodec.isBinary(legacy)).isFalse();
+        assertNormalizedRaw(codec.decode(legacy));
+
+        ReflectionTestUtils.setField(codec, "binaryWrite", false);
+        FaceEmbedding embedding = FaceEmbedding.normalize(RAW);
+        byte[] json = codec.encode(embedding);
+        assertThat(FaceEmbeddingCodec.isBinary(json)).isFalse();
+        assertThat(codec.decode(json).getVector()).containsExactly(embedding.getVector());
+
+        ReflectionTestUtils.setField(codec, "binaryWrite", true);
+        byte[] binary = codec.encode(embedding);
+        assertThat(FaceEmbeddingCodec.isNormalized(binary)).isTrue();
+        assertThat(codec.decode(binary).getVector()).containsExactly(embedding.getVector());
+    }
+
+    @Test
+    @DisplayName("지원하지 않는 버전은 거부한다")
+    void rejectsUnknownVersion() {
+        byte[] data = header((byte) 9, RAW.length, RAW.length * Float.BYTES);
+        assertThatThrownBy(() -> FaceEmbeddingCodec.decodeBinary(data))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertNormalizedRaw(FaceEmbedding decoded) {
+        assertThat(decoded.getNorm()).isCloseTo(13f, within(1e-5f));
+        float[] vector = decoded.getVector();
+        assertThat(vector).hasSize(RAW.length);
+        for (int i = 0; i < RAW.length; i++) {
+            assertThat(vector[i]).isCloseTo(RAW[i] / 13f, within(1e-6f));
+        }
+    }
+
+    @Test
+    @DisplayName("손상된 차원 수는 배열을 할당하기 전에 거부한다")
+    void rejectsCorruptDimension() {
+        for (int dimension : new int[]{0, -1, FaceEmbeddingCodec.MAX_DIMENSION + 1, Integer.MAX_VALUE, 0x40000000}) {
+            byte[] data = header((byte) 2, dimension, 16);
+            assertThatThrownBy(() -> FaceEmbeddingCodec.decodeBinary(data))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("차원 수보다 짧은 데이터는 거부한다")
+    void rejectsTruncatedVector() {
+        byte[] data = header((byte) 2, 128, 127 * Float.BYTES);
+        assertThatThrownBy(() -> FaceEmbeddingCodec.decodeBinary(data))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] header(byte version, int dimension, int payloadBytes) {
+        ByteBuffer buffer = ByteBuffer
+                .allocate(FaceEmbeddingCodec.HEADER_SIZE + payloadBytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'F').put((byte) 'E').put(version).put((byte) 1)
+                .putInt(dimension)
+                .putFloat(1f);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static com.example.pinokkio.api.customer.embedding.BruteForceSearch.customerIdOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswFaceIndexTest {
+
+    @Test
+    @DisplayName("재방문 얼굴 검색 결과가 전체 탐색과 95% 이상 일치한다")
+    void recallAgainstBruteForce() {
+        SyntheticFaces faces = SyntheticFaces.normalized(2000, 4);
+        BruteForceSearch bruteForce = new BruteForceSearch(faces);
+        HnswFaceIndex index = new HnswFaceIndex(16, 100, 64);
+        faces.addTo(index);
+
+        Random random = new Random(5);
+        int queries = 500;
+        int agreed = 0;
+        for (int q = 0; q < queries; q++) {
+            int customer = random.nextInt(2000);
+            float[] query = faces.revisitOf(customer, 0.05);
+            int age = faces.ages[customer];
+            FaceMatch expected = bruteForce.flat(query, faces.genders[customer], age - 5, age + 5, 0.7);
+            FaceMatch actual = index.findBest(query, faces.genders[customer], age - 5, age + 5, 0.7);
+            if (customerIdOf(expected) != null && customerIdOf(expected).equals(customerIdOf(actual))) {
+                agreed++;
+            }
+        }
+        assertThat(agreed).isGreaterThanOrEqualTo(queries * 95 / 100);
+    }
+
+    @Test
+    @DisplayName("임계값을 넘는 고객이 없으면 매칭하지 않는다")
+    void unknownFacesAreNotMatched() {
+        SyntheticFaces faces = SyntheticFaces.normalized(500, 6);
+        HnswFaceIndex index = new HnswFaceIndex(16, 100, 64);
+        faces.addTo(index);
+
+        for (int q = 0; q < 100; q++) {
+            assertThat(index.findBest(faces.randomVector(), Gender.MALE, 0, 100, 0.7)).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("같은 고객을 반복해서 다시 등록해도 그래프가 계속 커지지 않는다")
+    void reRegistrationKeepsGraphBounded() {
+        SyntheticFaces faces = SyntheticFaces.normalized(200, 1);
+        HnswFaceIndex index = new HnswFaceIndex(16, 100, 64);
+        faces.addTo(index);
+
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 200; i++) {
+                index.upsert(faces.customerIds[i], faces.genders[i], faces.ages[i], faces.revisitOf(i, 0.01));
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(200);
+        assertThat(index.graphSize()).isLessThanOrEqualTo((int) Math.ceil(200 / 0.8) + 1);
+    }
+
+    @Test
+    @DisplayName("삭제한 고객은 검색되지 않고, 그래프를 다시 만든 뒤에도 남은 고객은 찾는다")
+    void removedCustomersAreNeverReturned() {
+        SyntheticFaces faces = SyntheticFaces.normalized(300, 2);
+        HnswFaceIndex index = new HnswFaceIndex(16, 100, 64);
+        faces.addTo(index);
+
+        for (int i = 0; i < 150; i++) {
+            index.remove(faces.customerIds[i]);
+        }
+
+        assertThat(index.size()).isEqualTo(150);
+        assertThat(index.graphSize()).isLessThan(300);
+        for (int i = 0; i < 150; i++) {
+            FaceMatch removed = index.findBest(faces.vectors[i], faces.genders[i], 0, 100, 0.99);
+            assertThat(removed).isNull();
+        }
+        int found = 0;
+        for (int i = 150; i < 300; i++) {
+            FaceMatch match = index.findBest(faces.revisitOf(i, 0.01), faces.genders[i], 0, 100, 0.9);
+            if (match != null && match.getCustomerId().equals(faces.customerIds[i])) {
+                found++;
+            }
+        }
+        assertThat(found).isGreaterThanOrEqualTo(147);
+    }
+
+    @Test
+    @DisplayName("모든 고객을 삭제하면 비어 있는 인덱스가 된다")
+    void removingEveryoneEmptiesTheIndex() {
+        HnswFaceIndex index = new HnswFaceIndex(16, 100, 64);
+        UUID customerId = UUID.randomUUID();
+        index.upsert(customerId, Gender.MALE, 30, SyntheticFaces.normalized(1, 3).vectors[0]);
+
+        index.remove(customerId);
+
+        assertThat(index.size()).isZero();
+        assertThat(index.graphSize()).isZero();
+        assertThat(index.findBest(SyntheticFaces.normalized(1, 3).vectors[0], Gender.MALE, 0, 100, 0.0)).isNull();
+    }
+}
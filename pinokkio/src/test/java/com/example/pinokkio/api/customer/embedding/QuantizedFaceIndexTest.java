@@ -0,0 +1,83 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.example.pinokkio.api.customer.embedding.BruteForceSearch.customerIdOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantizedFaceIndexTest {
+
+    private static final int POPULATION = 2000;
+
+    private final SyntheticFaces faces = SyntheticFaces.normalized(POPULATION, 21);
+    private final BruteForceSearch bruteForce = new BruteForceSearch(faces);
+    private final Random random = new Random(22);
+
+    @Test
+    @DisplayName("재정렬 후보가 전체 고객을 덮으면 전체 탐색과 같은 결과를 반환한다")
+    void fullRerankEqualsBruteForce() {
+        QuantizedFaceIndex index = new QuantizedFaceIndex(POPULATION, 0);
+        faces.addTo(index);
+
+        for (int q = 0; q < 200; q++) {
+            float[] query = q % 2 == 0 ? faces.revisitOf(random.nextInt(POPULATION), 0.05) : faces.randomVector();
+            Gender gender = random.nextBoolean() ? Gender.MALE : Gender.FEMALE;
+            int age = 10 + random.nextInt(70);
+            for (double threshold : new double[]{0.2, 0.9}) {
+                FaceMatch expected = bruteForce.flat(query, gender, age - 5, age + 5, threshold);
+                FaceMatch actual = index.findBest(query, gender, age - 5, age + 5, threshold);
+                assertThat(customerIdOf(actual)).isEqualTo(customerIdOf(expected));
+                if (expected != null) {
+                    // 재정렬은 원본 float32 벡터로 계산한다.
+                    assertThat(actual.getSimilarity()).isEqualTo(expected.getSimilarity());
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("int8 후보 선정 후 재정렬한 결과가 재방문 고객을 놓치지 않는다")
+    void rerankRecallsRevisits() {
+        QuantizedFaceIndex index = new QuantizedFaceIndex(32, 1.0);
+        faces.addTo(index);
+
+        int agreed = 0;
+        int queries = 500;
+        for (int q = 0; q < queries; q++) {
+            int customer = random.nextInt(POPULATION);
+            float[] query = faces.revisitOf(customer, 0.05);
+            int age = faces.ages[customer];
+            FaceMatch expected = bruteForce.flat(query, faces.genders[customer], age - 5, age + 5, 0.7);
+            FaceMatch actual = index.findBest(query, faces.genders[customer], age - 5, age + 5, 0.7);
+            if (customerIdOf(actual) != null && customerIdOf(actual).equals(customerIdOf(expected))) {
+                agreed++;
+            }
+        }
+
+        assertThat(agreed).isGreaterThanOrEqualTo(queries * 99 / 100);
+        // 모든 검색을 표본으로 삼았으므로 내부 재현율 지표도 같은 수준이어야 한다.
+        assertThat(index.getRecallSamples()).isEqualTo(queries);
+        assertThat(index.getRecallMatches()).isGreaterThanOrEqualTo(queries * 99L / 100);
+    }
+
+    @Test
+    @DisplayName("삭제한 고객은 후보에서 빠진다")
+    void removedCustomersAreNotCandidates() {
+        QuantizedFaceIndex index = new QuantizedFaceIndex(32, 0);
+        faces.addTo(index);
+        for (int i = 0; i < POPULATION; i += 2) {
+            index.remove(faces.customerIds[i]);
+        }
+
+        assertThat(index.size()).isEqualTo(POPULATION / 2);
+        for (int i = 0; i < 200; i += 2) {
+            assertThat(index.findBest(faces.vectors[i], faces.genders[i], 0, 100, 0.99)).isNull();
+            FaceMatch kept = index.findBest(faces.revisitOf(i + 1, 0.01), faces.genders[i + 1], 0, 100, 0.9);
+            assertThat(customerIdOf(kept)).isEqualTo(faces.customerIds[i + 1]);
+        }
+    }
+}
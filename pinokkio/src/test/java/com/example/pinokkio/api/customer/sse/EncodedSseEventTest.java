@@ -0,0 +1,90 @@
+package com.example.pinokkio.api.customer.sse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class EncodedSseEventTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SseController controller;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        controller = new SseController();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    @DisplayName("인코딩한 이벤트는 data: 를 덧붙이지 않고 SSE 프레임 그대로 전송된다")
+    void writesFrameAsIs() throws Exception {
+        String body = stream(EncodedSseEvent.encode(objectMapper, "customerInfo", "7", Map.of("name", "홍길동")));
+
+        assertThat(body).isEqualTo("event:customerInfo\nid:7\ndata:{\"name\":\"홍길동\"}\n\n");
+    }
+
+    @Test
+    @DisplayName("여러 줄 데이터는 줄마다 data: 필드로 전송된다")
+    void writesMultiLineData() throws Exception {
+        String body = stream(EncodedSseEvent.encode(objectMapper, "notice", null, "first\nsecond"));
+
+        assertThat(body).isEqualTo("event:notice\ndata:first\ndata:second\n\n");
+    }
+
+    @Test
+    @DisplayName("연속으로 보낸 이벤트는 프레임이 이어 붙어 전송된다")
+    void writesConsecutiveFrames() throws Exception {
+        String body = stream(
+                EncodedSseEvent.encode(objectMapper, "waitingStatus", "1", Map.of("isWaiting", true)),
+                EncodedSseEvent.encode(objectMapper, "waitingStatus", "2", Map.of("isWaiting", false)));
+
+        assertThat(body).isEqualTo("event:waitingStatus\nid:1\ndata:{\"isWaiting\":true}\n\n"
+                + "event:waitingStatus\nid:2\ndata:{\"isWaiting\":false}\n\n");
+    }
+
+    @Test
+    @DisplayName("하트비트는 클라이언트가 이벤트로 받지 않는 주석 프레임으로 전송된다")
+    void writesHeartbeatAsComment() throws Exception {
+        String body = stream(EncodedSseEvent.comment("heartbeat", "hb"));
+
+        assertThat(body).isEqualTo(":hb\n\n");
+    }
+
+    private String stream(EncodedSseEvent... events) throws Exception {
+        MvcResult result = mockMvc.perform(get("/sse"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        for (EncodedSseEvent event : events) {
+            event.writeTo(controller.emitter);
+        }
+        controller.emitter.complete();
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    @RestController
+    static class SseController {
+        private SseEmitter emitter;
+
+        @GetMapping("/sse")
+        SseEmitter subscribe() {
+            emitter = new SseEmitter();
+            return emitter;
+        }
+    }
+}
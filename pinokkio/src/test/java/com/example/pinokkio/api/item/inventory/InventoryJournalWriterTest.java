@@ -0,0 +1,92 @@
+package com.example.pinokkio.api.item.inventory;
+
+import com.example.pinokkio.api.item.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryJournalWriterTest {
+
+    private final UUID coffeeId = UUID.randomUUID();
+
+    private ItemRepository itemRepository;
+    private AppliedInventoryEntryRepository appliedInventoryEntryRepository;
+    private InventoryJournalWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        appliedInventoryEntryRepository = mock(AppliedInventoryEntryRepository.class);
+        when(appliedInventoryEntryRepository.findAllById(anyList())).thenReturn(List.of());
+        writer = new InventoryJournalWriter(itemRepository, appliedInventoryEntryRepository);
+    }
+
+    @Test
+    @DisplayName("이미 반영한 주문의 차감은 다시 적용해도 건너뛴다")
+    void skipsAlreadyAppliedEntry() {
+        UUID orderId = UUID.randomUUID();
+        when(appliedInventoryEntryRepository.findAllById(anyList()))
+                .thenReturn(List.of(new AppliedInventoryEntry(orderId.toString())));
+
+        int applied = writer.apply(List.of(orderId + "|-|" + coffeeId + ":2"));
+
+        assertThat(applied).isZero();
+        verify(itemRepository, never()).subtractAmount(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("한 묶음에 같은 항목이 두 번 들어 있으면 한 번만 차감한다")
+    void appliesDuplicateOnce() {
+        String entry = UUID.randomUUID() + "|-|" + coffeeId + ":2";
+
+        int applied = writer.apply(List.of(entry, entry));
+
+        assertThat(applied).isEqualTo(1);
+        verify(itemRepository).subtractAmount(coffeeId, 2);
+    }
+
+    @Test
+    @DisplayName("'=' 이전의 차감은 버리고 이후의 차감만 설정한 재고에서 뺀다")
+    void appliesDeductionsAfterSet() {
+        int applied = writer.apply(List.of(
+                UUID.randomUUID() + "|-|" + coffeeId + ":5",
+                UUID.randomUUID() + "|=|" + coffeeId + ":10",
+                UUID.randomUUID() + "|-|" + coffeeId + ":3"));
+
+        assertThat(applied).isEqualTo(3);
+        verify(itemRepository).setAmount(coffeeId, 7);
+        verify(itemRepository, never()).subtractAmount(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("'=' 만 있으면 그 재고로 설정한다")
+    void appliesSetAlone() {
+        writer.apply(List.of(UUID.randomUUID() + "|=|" + coffeeId + ":10"));
+
+        verify(itemRepository).setAmount(coffeeId, 10);
+    }
+
+    @Test
+    @DisplayName("읽을 수 없는 항목과 알 수 없는 연산은 건너뛴다")
+    void skipsMalformedEntries() {
+        int applied = writer.apply(List.of(
+                "garbage",
+                UUID.randomUUID() + "|+|" + coffeeId + ":2",
+                UUID.randomUUID() + "|-|" + coffeeId + ":1"));
+
+        assertThat(applied).isEqualTo(1);
+        verify(itemRepository).subtractAmount(coffeeId, 1);
+    }
+}
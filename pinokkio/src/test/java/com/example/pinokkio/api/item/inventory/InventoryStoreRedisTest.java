@@ -0,0 +1,190 @@
+package com.example.pinokkio.api.item.inventory;
+
+import com.example.pinokkio.api.item.Item;
+import com.example.pinokkio.exception.domain.item.ItemAmountException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 재고 Lua 스크립트를 실제 Redis 에서 실행하여 검증한다. (Docker 가 없으면 건너뛴다)
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class InventoryStoreRedisTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    private final UUID orderId = UUID.randomUUID();
+    private final UUID posId = UUID.randomUUID();
+    private final UUID coffeeId = UUID.randomUUID();
+    private final UUID cakeId = UUID.randomUUID();
+
+    private InventoryStore store;
+    private Map<UUID, Integer> quantities;
+    private PendingReservation reservation;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        store = new InventoryStore(redis, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "enabled", true);
+        quantities = new LinkedHashMap<>();
+        quantities.put(coffeeId, 2);
+        quantities.put(cakeId, 1);
+        reservation = new PendingReservation(orderId, posId, quantities);
+        // 커밋이나 롤백 전의 예약 대기 상태를 보기 위해 트랜잭션 동기화를 켠다.
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("예약하면 재고를 차감하고 예약 대기 집합과 예약 수량에 남기며, 저널에는 아직 넣지 않는다")
+    void reservesPending() {
+        store.reserve(orderId, posId, quantities, items(10, 3));
+
+        assertThat(stock(coffeeId)).isEqualTo("8");
+        assertThat(stock(cakeId)).isEqualTo("2");
+        assertThat(redis.opsForHash().get(reservedKey(), coffeeId.toString())).isEqualTo("2");
+        assertThat(redis.opsForZSet().score(InventoryStore.PENDING_KEY, reservation.member())).isNotNull();
+        assertThat(redis.opsForList().size(InventoryStore.JOURNAL_KEY)).isZero();
+    }
+
+    @Test
+    @DisplayName("한 아이템이라도 부족하면 아무것도 차감하거나 예약하지 않는다")
+    void reservesAllOrNothing() {
+        assertThatThrownBy(() -> store.reserve(orderId, posId, quantities, items(10, 0)))
+                .isInstanceOf(ItemAmountException.class);
+
+        assertThat(stock(coffeeId)).isEqualTo("10");
+        assertThat(stock(cakeId)).isEqualTo("0");
+        assertThat(redis.opsForZSet().size(InventoryStore.PENDING_KEY)).isZero();
+        assertThat(redis.hasKey(reservedKey())).isFalse();
+    }
+
+    @Test
+    @DisplayName("확정은 한 번만 저널에 남기고 예약 수량을 비운다")
+    void confirmsOnce() {
+        store.reserve(orderId, posId, quantities, items(10, 3));
+
+        assertThat(store.confirm(reservation)).isTrue();
+        assertThat(store.confirm(reservation)).isFalse();
+        assertThat(store.release(reservation)).isFalse();
+
+        assertThat(redis.opsForList().range(InventoryStore.JOURNAL_KEY, 0, -1))
+                .containsExactly(reservation.journalEntry());
+        assertThat(redis.hasKey(reservedKey())).isFalse();
+        assertThat(redis.opsForZSet().size(InventoryStore.PENDING_KEY)).isZero();
+        assertThat(stock(coffeeId)).isEqualTo("8");
+    }
+
+    @Test
+    @DisplayName("되돌리기는 한 번만 재고를 늘리고 저널에 남기지 않는다")
+    void releasesOnce() {
+        store.reserve(orderId, posId, quantities, items(10, 3));
+
+        assertThat(store.release(reservation)).isTrue();
+        assertThat(store.release(reservation)).isFalse();
+        assertThat(store.confirm(reservation)).isFalse();
+
+        assertThat(stock(coffeeId)).isEqualTo("10");
+        assertThat(stock(cakeId)).isEqualTo("3");
+        assertThat(redis.hasKey(reservedKey())).isFalse();
+        assertThat(redis.opsForList().size(InventoryStore.JOURNAL_KEY)).isZero();
+    }
+
+    @Test
+    @DisplayName("예약 뒤에 삭제된 아이템은 되돌려도 재고가 다시 생기지 않는다")
+    void releaseSkipsRemovedItem() {
+        store.reserve(orderId, posId, quantities, items(10, 3));
+        // 아이템 삭제는 다른 트랜잭션에서 커밋된다.
+        TransactionSynchronizationManager.clearSynchronization();
+        store.removeAfterCommit(posId, coffeeId);
+
+        assertThat(store.release(reservation)).isTrue();
+
+        assertThat(redis.opsForHash().hasKey(stockKey(), coffeeId.toString())).isFalse();
+        assertThat(stock(cakeId)).isEqualTo("3");
+    }
+
+    @Test
+    @DisplayName("예약 대기 중에 재고를 설정하면 DB 에는 예약 수량을 더한 재고를 남긴다")
+    void setIncludesPendingReservation() {
+        store.reserve(orderId, posId, quantities, items(10, 3));
+        TransactionSynchronizationManager.clearSynchronization();
+        store.setAmountAfterCommit(posId, coffeeId, 5);
+
+        assertThat(stock(coffeeId)).isEqualTo("5");
+        String set = redis.opsForList().index(InventoryStore.JOURNAL_KEY, 0);
+        assertThat(set).endsWith("|=|" + coffeeId + ":7");
+
+        // 확정되면 DB 는 7 - 2 = 5 로 Redis 와 같아진다.
+        assertThat(store.confirm(reservation)).isTrue();
+        assertThat(redis.opsForList().index(InventoryStore.JOURNAL_KEY, 0)).isEqualTo(reservation.journalEntry());
+    }
+
+    private Map<UUID, Item> items(int coffeeAmount, int cakeAmount) {
+        return Map.of(
+                coffeeId, Item.builder().amount(coffeeAmount).build(),
+                cakeId, Item.builder().amount(cakeAmount).build());
+    }
+
+    private String stock(UUID itemId) {
+        return (String) redis.opsForHash().get(stockKey(), itemId.toString());
+    }
+
+    private String stockKey() {
+        return "inventory:" + posId;
+    }
+
+    private String reservedKey() {
+        return "inventory:reserved:" + posId;
+    }
+}
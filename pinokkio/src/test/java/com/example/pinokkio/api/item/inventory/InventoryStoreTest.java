@@ -0,0 +1,180 @@
+package com.example.pinokkio.api.item.inventory;
+
+import com.example.pinokkio.api.item.Item;
+import com.example.pinokkio.exception.domain.item.ItemAmountException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryStoreTest {
+
+    private final UUID orderId = UUID.randomUUID();
+    private final UUID posId = UUID.randomUUID();
+    private final UUID coffeeId = UUID.randomUUID();
+    private final UUID cakeId = UUID.randomUUID();
+
+    private RecordingRedisTemplate redis;
+    private InventoryStore store;
+    private Map<UUID, Integer> quantities;
+    private Map<UUID, Item> items;
+
+    @BeforeEach
+    void setUp() {
+        redis = new RecordingRedisTemplate();
+        store = new InventoryStore(redis, new SimpleMeterRegistry());
+        quantities = new LinkedHashMap<>();
+        quantities.put(coffeeId, 2);
+        quantities.put(cakeId, 1);
+        items = Map.of(
+                coffeeId, Item.builder().amount(10).build(),
+                cakeId, Item.builder().amount(3).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("예약은 주문 식별자를 담은 멤버로 장바구니 전체를 한 번에 예약한다")
+    void reservesWholeCart() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        store.reserve(orderId, posId, quantities, items);
+
+        assertThat(redis.calls).hasSize(1);
+        ScriptCall call = redis.calls.get(0);
+        assertThat(call.script).isSameAs(script("reserveScript"));
+        assertThat(call.keys).containsExactly(
+                "inventory:" + posId, InventoryStore.PENDING_KEY, "inventory:reserved:" + posId);
+        assertThat(call.args.get(0)).isEqualTo(orderId + "|" + posId + "|" + coffeeId + ":2," + cakeId + ":1");
+        assertThat(call.args.subList(2, call.args.size()))
+                .containsExactly(coffeeId.toString(), "2", "10", cakeId.toString(), "1", "3");
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("재고가 부족하면 부족한 아이템으로 예외를 던지고 확정도 되돌리기도 등록하지 않는다")
+    void rejectsInsufficientStock() {
+        TransactionSynchronizationManager.initSynchronization();
+        redis.results.put(script("reserveScript"), cakeId.toString());
+
+        assertThatThrownBy(() -> store.reserve(orderId, posId, quantities, items))
+                .isInstanceOf(ItemAmountException.class);
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+        assertThat(redis.calls).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("주문 트랜잭션이 롤백되면 예약을 되돌리고 저널에 남기지 않는다")
+    void releasesOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        store.reserve(orderId, posId, quantities, items);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(redis.calls).hasSize(2);
+        ScriptCall release = redis.calls.get(1);
+        assertThat(release.script).isSameAs(script("releaseScript"));
+        assertThat(release.keys).containsExactly(
+                "inventory:" + posId, InventoryStore.PENDING_KEY, "inventory:reserved:" + posId);
+        assertThat(release.args).containsExactly(
+                orderId + "|" + posId + "|" + coffeeId + ":2," + cakeId + ":1",
+                coffeeId.toString(), "2", cakeId.toString(), "1");
+    }
+
+    @Test
+    @DisplayName("주문 트랜잭션이 커밋되면 주문 식별자로 차감 저널 항목을 남긴다")
+    void confirmsOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        store.reserve(orderId, posId, quantities, items);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(redis.calls).hasSize(2);
+        ScriptCall confirm = redis.calls.get(1);
+        assertThat(confirm.script).isSameAs(script("confirmScript"));
+        assertThat(confirm.keys).containsExactly(
+                InventoryStore.PENDING_KEY, InventoryStore.JOURNAL_KEY, "inventory:reserved:" + posId);
+        assertThat(confirm.args.get(1)).isEqualTo(orderId + "|-|" + coffeeId + ":2," + cakeId + ":1");
+    }
+
+    @Test
+    @DisplayName("트랜잭션 밖의 예약은 바로 확정한다")
+    void confirmsImmediatelyWithoutTransaction() {
+        store.reserve(orderId, posId, quantities, items);
+
+        assertThat(redis.calls).hasSize(2);
+        assertThat(redis.calls.get(1).script).isSameAs(script("confirmScript"));
+    }
+
+    @Test
+    @DisplayName("예약 대기 멤버는 다시 읽어도 같은 예약이 된다")
+    void parsesPendingMember() {
+        PendingReservation reservation = new PendingReservation(orderId, posId, quantities);
+
+        PendingReservation parsed = PendingReservation.parse(reservation.member());
+
+        assertThat(parsed.getOrderId()).isEqualTo(orderId);
+        assertThat(parsed.getPosId()).isEqualTo(posId);
+        assertThat(parsed.getQuantities()).containsExactlyEntriesOf(quantities);
+    }
+
+    private void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private RedisScript<?> script(String field) {
+        return (RedisScript<?>) ReflectionTestUtils.getField(store, field);
+    }
+
+    // 스크립트 실행만 기록하고, 정해 둔 결과를 반환한다.
+    private static class RecordingRedisTemplate extends StringRedisTemplate {
+        private final List<ScriptCall> calls = new ArrayList<>();
+        private final Map<RedisScript<?>, Object> results = new HashMap<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            calls.add(new ScriptCall(script, keys, args));
+            return (T) results.get(script);
+        }
+    }
+
+    private static class ScriptCall {
+        private final RedisScript<?> script;
+        private final List<String> keys;
+        private final List<Object> args;
+
+        private ScriptCall(RedisScript<?> script, List<String> keys, Object[] args) {
+            this.script = script;
+            this.keys = keys;
+            this.args = List.of(args);
+        }
+    }
+}
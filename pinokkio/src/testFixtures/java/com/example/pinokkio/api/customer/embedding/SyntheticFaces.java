@@ -0,0 +1,91 @@
+package com.example.pinokkio.api.customer.embedding;
+
+import com.example.pinokkio.common.type.Gender;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * 테스트와 벤치마크용 가상 고객 얼굴 임베딩 집단.
+ * 고정 시드로 생성하므로 실행마다 같은 데이터가 만들어진다.
+ */
+public class SyntheticFaces {
+
+    // 분석 서버 응답과 같은 차원
+    public static final int ANALYZER_DIMENSION = 512;
+    // 인덱스 테스트용 차원 (전체 탐색과의 비교에는 차원 수가 중요하지 않다)
+    public static final int TEST_DIMENSION = 64;
+
+    private final Random random;
+    private final boolean normalized;
+
+    public final int dimension;
+    public final UUID[] customerIds;
+    public final Gender[] genders;
+    public final int[] ages;
+    // normalized 이면 정규화된 임베딩, 아니면 분석 서버 응답과 같은 정규화 전 임베딩
+    public final float[][] vectors;
+
+    public SyntheticFaces(int population, long seed, int dimension, boolean normalized) {
+        this.random = new Random(seed);
+        this.dimension = dimension;
+        this.normalized = normalized;
+        this.customerIds = new UUID[population];
+        this.genders = new Gender[population];
+        this.ages = new int[population];
+        this.vectors = new float[population][];
+        for (int i = 0; i < population; i++) {
+            customerIds[i] = new UUID(seed, i);
+            genders[i] = random.nextBoolean() ? Gender.MALE : Gender.FEMALE;
+            ages[i] = 10 + random.nextInt(70);
+            vectors[i] = randomVector();
+        }
+    }
+
+    /**
+     * 분석 서버 응답과 같은 정규화 전 512 차원 임베딩 집단 (벤치마크용)
+     */
+    public static SyntheticFaces analyzer(int population, long seed) {
+        return new SyntheticFaces(population, seed, ANALYZER_DIMENSION, false);
+    }
+
+    /**
+     * 정규화된 작은 차원 임베딩 집단 (인덱스 테스트용)
+     */
+    public static SyntheticFaces normalized(int population, long seed) {
+        return new SyntheticFaces(population, seed, TEST_DIMENSION, true);
+    }
+
+    public void addTo(FaceIndex index) {
+        for (int i = 0; i < vectors.length; i++) {
+            index.upsert(customerIds[i], genders[i], ages[i], vectors[i]);
+        }
+    }
+
+    public float[] randomVector() {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) (random.nextGaussian() * 2.0);
+        }
+        return finish(vector);
+    }
+
+    /**
+     * 등록된 고객 한 명의 임베딩에 잡음을 더해 재방문 고객의 입력 임베딩을 만든다.
+     */
+    public float[] revisitOf(int customer, double noise) {
+        float[] vector = vectors[customer].clone();
+        for (int i = 0; i < dimension; i++) {
+            vector[i] += (float) (random.nextGaussian() * noise);
+        }
+        return finish(vector);
+    }
+
+    public int randomCustomer() {
+        return random.nextInt(vectors.length);
+    }
+
+    private float[] finish(float[] vector) {
+        return normalized ? FaceEmbedding.normalize(vector).getVector() : vector;
+    }
+}